@@ -0,0 +1,29 @@
+package pg.hib.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs benchmarks with the GC profiler and writes the results as JSON, so builds can be compared by tooling.
+ * Arguments: include regex (defaults to the database-free hot paths) and result file (defaults to jmh-result.json).
+ */
+public final class BenchmarkRunner {
+
+    private static final String IN_JVM_BENCHMARKS = "HotPathBenchmark|RowMapperBenchmark";
+
+    private BenchmarkRunner() { }
+
+    public static void main(String[] args) throws RunnerException {
+        final Options options = new OptionsBuilder()
+                .include(args.length > 0 ? args[0] : IN_JVM_BENCHMARKS)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(args.length > 1 ? args[1] : "jmh-result.json")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,85 @@
+package pg.hib.benchmarks;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import pg.hib.dao.CarDao;
+import pg.hib.dao.DaoFactory;
+import pg.hib.dao.RepositorySettings;
+import pg.hib.entities.CarEntity;
+import pg.hib.providers.HibernateSessionProvider;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Emptying a table of 100k cars: one {@code session.delete} per entity as deleteAll used to do, the set-based
+ * deleteAll by id, a single DELETE and TRUNCATE. The entities are loaded before each invocation, only the delete is
+ * measured.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+@State(Scope.Benchmark)
+public class DeleteAllBenchmark {
+
+    private static final int ROWS = 100_000;
+
+    private SessionFactory sessionFactory;
+    private CarDao repository;
+    private List<CarEntity> cars;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        sessionFactory = HibernateSessionProvider.getInstance().getSessionFactory();
+        repository = DaoFactory.getCarRepository(sessionFactory);
+    }
+
+    @Setup(Level.Invocation)
+    public void fillTable() {
+        repository.truncate();
+        final List<CarEntity> newCars = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            newCars.add(new CarEntity(i % 2 == 0, LocalDateTime.now(), LocalDateTime.now().minusDays(i % 5000)));
+        }
+        repository.bulkLoad(newCars);
+        cars = repository.findAll();
+    }
+
+    @Benchmark
+    public void perEntityDelete() {
+        try (Session session = sessionFactory.openSession()) {
+            Transaction transaction = session.beginTransaction();
+            int i = 0;
+            for (CarEntity car : cars) {
+                session.delete(car);
+                if (++i % RepositorySettings.DEFAULT_BATCH_SIZE == 0) {
+                    session.flush();
+                    session.clear();
+                }
+            }
+            transaction.commit();
+        }
+    }
+
+    @Benchmark
+    public void deleteAllById(Blackhole blackhole) {
+        blackhole.consume(repository.deleteAll(cars));
+    }
+
+    @Benchmark
+    public void deleteEverything(Blackhole blackhole) {
+        blackhole.consume(repository.deleteEverything());
+    }
+
+    @Benchmark
+    public void truncate() {
+        repository.truncate();
+    }
+}
@@ -0,0 +1,41 @@
+package pg.hib.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import pg.hib.entities.LocalDateTimeConverter;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-row work that needs no database: the {@link LocalDateTimeConverter} in both directions. The repository's own
+ * per-call helpers are measured through its public methods by {@link RepositoryQueryBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HotPathBenchmark {
+
+    private LocalDateTimeConverter converter;
+    private LocalDateTime dateTime;
+    private String isoDateTime;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        converter = new LocalDateTimeConverter();
+        dateTime = LocalDateTime.of(2021, 12, 24, 18, 30, 15, 123_456_000);
+        isoDateTime = converter.convertToDatabaseColumn(dateTime);
+    }
+
+    @Benchmark
+    public String converterToDatabaseColumn() {
+        return converter.convertToDatabaseColumn(dateTime);
+    }
+
+    @Benchmark
+    public LocalDateTime converterToEntityAttribute() {
+        return converter.convertToEntityAttribute(isoDateTime);
+    }
+}
@@ -0,0 +1,93 @@
+package pg.hib.benchmarks;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import pg.hib.dao.CarDao;
+import pg.hib.dao.DaoFactory;
+import pg.hib.dao.IdBindingMode;
+import pg.hib.dao.RepositorySettings;
+import pg.hib.entities.CarEntity;
+import pg.hib.providers.HibernateSessionProvider;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * findByIds/deleteByIds id binding across list sizes. Odd sizes are deliberate: with a plain IN list each of them is a
+ * separate query plan, padded chunks and the array bind collapse them into a few shapes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class IdBindingBenchmark {
+
+    private static final int TABLE_ROWS = 200_000;
+
+    @Param({"1", "7", "100", "999", "10000", "100000"})
+    private int listSize;
+
+    @Param({"PADDED_IN_LIST", "POSTGRES_ARRAY"})
+    private IdBindingMode idBindingMode;
+
+    private SessionFactory sessionFactory;
+    private CarDao repository;
+    private List<Long> existingIds;
+    private List<Serializable> ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        sessionFactory = HibernateSessionProvider.getInstance().getSessionFactory();
+        sessionFactory.getStatistics().setStatisticsEnabled(true);
+        repository = DaoFactory.getCarRepository(
+                sessionFactory, RepositorySettings.builder().batchSize(1000).idBindingMode(idBindingMode).build()
+        );
+        existingIds = ensureRows(repository);
+    }
+
+    @Setup(Level.Invocation)
+    public void pickIds() {
+        final Random random = new Random();
+        ids = new ArrayList<>(listSize);
+        for (int i = 0; i < listSize; i++) {
+            ids.add(existingIds.get(random.nextInt(existingIds.size())));
+        }
+    }
+
+    @Benchmark
+    public void findByIds(Blackhole blackhole) {
+        blackhole.consume(repository.findByIds(ids));
+    }
+
+    @TearDown(Level.Trial)
+    public void reportPlanCache() {
+        final Statistics statistics = sessionFactory.getStatistics();
+        System.out.printf("%n[%s, %d ids] query plan cache hits %d, misses %d%n", idBindingMode, listSize,
+                statistics.getQueryPlanCacheHitCount(), statistics.getQueryPlanCacheMissCount());
+        statistics.clear();
+    }
+
+    private static List<Long> ensureRows(CarDao repository) {
+        List<Long> ids = new ArrayList<>(TABLE_ROWS);
+        try (Stream<CarEntity> cars = repository.streamAll()) {
+            cars.forEach(car -> ids.add(car.getId()));
+        }
+        if (ids.size() < TABLE_ROWS) {
+            final List<CarEntity> cars = new ArrayList<>(TABLE_ROWS - ids.size());
+            for (int i = ids.size(); i < TABLE_ROWS; i++) {
+                cars.add(new CarEntity(i % 2 == 0, LocalDateTime.now(), LocalDateTime.now().minusDays(i % 5000)));
+            }
+            repository.saveAll(cars).forEach(car -> ids.add(car.getId()));
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,56 @@
+package pg.hib.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import pg.hib.dao.EntityMetadata;
+import pg.hib.dao.EntityMetadataRegistry;
+import pg.hib.entities.CarEntity;
+import pg.hib.providers.HibernateSessionProvider;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.util.LinkedHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Id name and type as the repositories used to find them, scanning field annotations on every call, against the
+ * metadata resolved once at bootstrap. Needs the session factory, so the database has to be reachable.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetadataLookupBenchmark {
+
+    private EntityMetadataRegistry registry;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        registry = EntityMetadataRegistry.forSessionFactory(HibernateSessionProvider.getInstance().getSessionFactory());
+    }
+
+    @Benchmark
+    public LinkedHashMap<String, Class<?>> reflectiveGetIdNameAndType() {
+        final LinkedHashMap<String, Class<?>> result = new LinkedHashMap<>(1);
+        for (Field field : CarEntity.class.getDeclaredFields()) {
+            for (Annotation declaredAnnotation : field.getDeclaredAnnotations()) {
+                if (declaredAnnotation.annotationType() == javax.persistence.Id.class) {
+                    result.put(field.getName(), field.getType());
+                }
+            }
+        }
+        return result;
+    }
+
+    @Benchmark
+    public String entityMetadataIdName() {
+        final EntityMetadata<CarEntity> metadata = registry.get(CarEntity.class);
+        return metadata.getIdName() + metadata.getIdType().getName();
+    }
+
+    @Benchmark
+    public String entityMetadataFindAllHql() {
+        return registry.get(CarEntity.class).getFindAllHql();
+    }
+}
@@ -0,0 +1,72 @@
+package pg.hib.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import pg.hib.dao.CarDao;
+import pg.hib.dao.DaoFactory;
+import pg.hib.dao.EntityFieldMapper;
+import pg.hib.entities.CarEntity;
+import pg.hib.providers.HibernateSessionProvider;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads through the public repository methods against a table of {@code resultSize} cars: {@code findAll} casts
+ * every row of the result, {@code executeSelectQuery} binds a parameter map with a scalar and a list on a real native
+ * query. Needs the database, so it is not part of the default {@link BenchmarkRunner} selection.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepositoryQueryBenchmark {
+
+    @Param({"10", "1000"})
+    private int resultSize;
+
+    private CarDao repository;
+    private Map<String, Object> parameters;
+    private EntityFieldMapper<CarEntity> mapper;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repository = DaoFactory.getCarRepository(HibernateSessionProvider.getInstance().getSessionFactory());
+        repository.truncate();
+        final List<CarEntity> cars = new ArrayList<>(resultSize);
+        for (int i = 0; i < resultSize; i++) {
+            cars.add(new CarEntity(i % 2 == 0, LocalDateTime.now(), LocalDateTime.now().minusDays(i)));
+        }
+        repository.bulkLoad(cars);
+        final List<Long> ids = new ArrayList<>(resultSize);
+        for (CarEntity car : repository.findAll()) {
+            ids.add(car.getId());
+        }
+        parameters = new HashMap<>();
+        parameters.put("active", true);
+        parameters.put("ids", ids);
+        mapper = repository.rowMapper("id", "active", "created", "firstRegistrationDate");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        repository.truncate();
+    }
+
+    @Benchmark
+    public List<CarEntity> findAll() {
+        return repository.findAll();
+    }
+
+    @Benchmark
+    public List<CarEntity> executeSelectQuery() {
+        return repository.executeSelectQuery(
+                "SELECT * FROM cars WHERE active = :active AND id IN (:ids)", parameters, mapper
+        );
+    }
+}
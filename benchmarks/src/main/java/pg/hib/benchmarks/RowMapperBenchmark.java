@@ -0,0 +1,108 @@
+package pg.hib.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import pg.hib.dao.EntityFieldMapper;
+import pg.hib.dao.RowMapperCompiler;
+import pg.hib.entities.CarEntity;
+import pg.hib.entities.LocalDateTimeConverter;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.math.BigInteger;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Native {@code SELECT * FROM cars} rows as the driver returns them (bigint id, converted timestamps as text) mapped by
+ * the former reflective {@code castObject}, the former string round-trip mapper in Main and compiled mappers.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RowMapperBenchmark {
+
+    private static final int ROWS = 1_000;
+
+    private Object[][] rows;
+    private EntityFieldMapper<CarEntity> constructorMapper;
+    private EntityFieldMapper<CarEntity> setterMapper;
+    private Object[][] reorderedRows;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        rows = new Object[ROWS][];
+        reorderedRows = new Object[ROWS][];
+        final LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < ROWS; i++) {
+            final String created = now.minusMinutes(i).toString();
+            final String registered = now.minusDays(i).toString();
+            rows[i] = new Object[]{BigInteger.valueOf(i), i % 2 == 0, created, registered};
+            reorderedRows[i] = new Object[]{registered, created, i % 2 == 0, BigInteger.valueOf(i)};
+        }
+        constructorMapper = RowMapperCompiler.compile(
+                CarEntity.class, Arrays.asList("id", "active", "created", "firstRegistrationDate")
+        );
+        //out of declaration order, so it binds through field setters
+        setterMapper = RowMapperCompiler.compile(
+                CarEntity.class, Arrays.asList("firstRegistrationDate", "created", "active", "id")
+        );
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void reflectiveCastObject(Blackhole blackhole) throws Exception {
+        for (Object[] row : rows) {
+            blackhole.consume(castObject(row.clone()));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void stringRoundTrip(Blackhole blackhole) {
+        for (Object[] fields : rows) {
+            blackhole.consume(new CarEntity(
+                    Long.valueOf(String.valueOf(fields[0])),
+                    Boolean.parseBoolean(String.valueOf(fields[1])),
+                    new LocalDateTimeConverter().convertToEntityAttribute(String.valueOf(fields[2])),
+                    new LocalDateTimeConverter().convertToEntityAttribute(String.valueOf(fields[3]))
+            ));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void compiledConstructor(Blackhole blackhole) {
+        for (Object[] row : rows) {
+            blackhole.consume(constructorMapper.map(row));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void compiledSetters(Blackhole blackhole) {
+        for (Object[] row : reorderedRows) {
+            blackhole.consume(setterMapper.map(row));
+        }
+    }
+
+    /** CarRepository.castObject before the compiled mappers, kept as the baseline. */
+    private static CarEntity castObject(Object[] fields) throws Exception {
+        final Class<?>[] parameterTypes = Arrays.stream(CarEntity.class.getDeclaredFields())
+                .map(Field::getType)
+                .toArray(Class<?>[]::new);
+        final Constructor<CarEntity> constructor = CarEntity.class.getConstructor(parameterTypes);
+        for (int i = 0; i < fields.length; i++) {
+            if (fields[i] instanceof BigInteger) {
+                fields[i] = ((BigInteger) fields[i]).longValue();
+            } else if (fields[i] instanceof String) {
+                fields[i] = new LocalDateTimeConverter().convertToEntityAttribute(String.valueOf(fields[i]));
+            }
+        }
+        return constructor.newInstance(fields);
+    }
+}
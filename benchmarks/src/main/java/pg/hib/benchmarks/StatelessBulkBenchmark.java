@@ -0,0 +1,117 @@
+package pg.hib.benchmarks;
+
+import org.hibernate.SessionFactory;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import pg.hib.dao.CarDao;
+import pg.hib.dao.DaoFactory;
+import pg.hib.dao.StatelessBasicCRUD;
+import pg.hib.entities.CarEntity;
+import pg.hib.providers.HibernateSessionProvider;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Stateful Session path against the StatelessSession path for one million cars. Run with {@code -prof gc} for allocation
+ * rates; peak heap of every measured iteration is printed after it.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class StatelessBulkBenchmark {
+
+    private static final int ROWS = 1_000_000;
+
+    @State(Scope.Benchmark)
+    public static class Repositories {
+        CarDao repository;
+        StatelessBasicCRUD<CarEntity> statelessRepository;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            SessionFactory sessionFactory = HibernateSessionProvider.getInstance().getSessionFactory();
+            repository = DaoFactory.getCarRepository(sessionFactory);
+            statelessRepository = DaoFactory.getStatelessRepository(sessionFactory, CarEntity.class);
+        }
+
+        @Setup(Level.Iteration)
+        public void resetPeakHeap() {
+            ManagementFactory.getMemoryPoolMXBeans().forEach(MemoryPoolMXBean::resetPeakUsage);
+        }
+
+        @TearDown(Level.Iteration)
+        public void reportPeakHeap() {
+            long peak = 0;
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP) {
+                    peak += pool.getPeakUsage().getUsed();
+                }
+            }
+            System.out.printf("%npeak heap %d MB%n", peak / (1024 * 1024));
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class EmptyTable {
+        List<CarEntity> cars;
+
+        @Setup(Level.Iteration)
+        public void prepareRows(Repositories repositories) {
+            repositories.repository.executeUpdateQuery("TRUNCATE TABLE cars", null);
+            cars = newCars();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class FilledTable {
+        @Setup(Level.Trial)
+        public void fillTable(Repositories repositories) {
+            repositories.repository.executeUpdateQuery("TRUNCATE TABLE cars", null);
+            repositories.repository.bulkLoad(newCars());
+        }
+    }
+
+    @Benchmark
+    public void statefulInsert(Repositories repositories, EmptyTable table, Blackhole blackhole) {
+        blackhole.consume(repositories.repository.saveAll(table.cars));
+    }
+
+    @Benchmark
+    public void statelessInsert(Repositories repositories, EmptyTable table, Blackhole blackhole) {
+        blackhole.consume(repositories.statelessRepository.insertAll(table.cars));
+    }
+
+    @Benchmark
+    public void statefulFindAll(Repositories repositories, FilledTable table, Blackhole blackhole) {
+        blackhole.consume(repositories.repository.findAll());
+    }
+
+    @Benchmark
+    public void statefulStreamAll(Repositories repositories, FilledTable table, Blackhole blackhole) {
+        try (Stream<CarEntity> stream = repositories.repository.streamAll()) {
+            stream.forEach(blackhole::consume);
+        }
+    }
+
+    @Benchmark
+    public void statelessScan(Repositories repositories, FilledTable table, Blackhole blackhole) {
+        blackhole.consume(repositories.statelessRepository.scan(blackhole::consume));
+    }
+
+    private static List<CarEntity> newCars() {
+        List<CarEntity> cars = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            cars.add(new CarEntity(i % 2 == 0, LocalDateTime.now(), LocalDateTime.now().minusDays(i % 5000)));
+        }
+        return cars;
+    }
+}
@@ -3,17 +3,27 @@ package pg.hib;
 import org.hibernate.SessionFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import pg.hib.dao.AsyncBasicCRUD;
 import pg.hib.dao.CarDao;
 import pg.hib.dao.DaoFactory;
 import pg.hib.dao.TestEntityDao;
 import pg.hib.entities.CarEntity;
-import pg.hib.entities.LocalDateTimeConverter;
 import pg.hib.entities.TestEntity;
+import pg.hib.load.LoadConfig;
+import pg.hib.load.LoadGenerator;
+import pg.hib.migration.TimestampColumnMigration;
 import pg.hib.providers.HibernateSessionProvider;
+import pg.hib.providers.LoggingMetricsExporter;
+import pg.hib.providers.OperationMetrics;
+import pg.hib.providers.RepositoryExecutors;
+import pg.hib.providers.UnitOfWork;
 
 import java.io.Serializable;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.LongStream;
 import java.util.stream.Stream;
 
 import static java.util.stream.Collectors.toMap;
@@ -24,19 +34,38 @@ public class Main {
     private static final Logger LOGGER = LoggerFactory.getLogger(Main.class);
 
     public static void main(String[] args) {
+        if (args.length > 0 && "load".equals(args[0])) {
+            //configured through the pg.hib.load.* properties, see LoadConfig
+            LoadGenerator.runStandalone(LoadConfig.fromSystemProperties());
+            return;
+        }
         HibernateSessionProvider hibSessionProvider = HibernateSessionProvider.getInstance();
         SessionFactory sessionFactory = hibSessionProvider.getSessionFactory();
 
+        if (args.length > 0 && "migrate-timestamps".equals(args[0])) {
+            TimestampColumnMigration.forConvertedColumns(sessionFactory).run();
+            sessionFactory.close();
+            return;
+        }
+
         playingWithTestBean(sessionFactory);
         playingWithCarEntity(sessionFactory);
-
+        concurrentLookups(hibSessionProvider, sessionFactory);
+
+        LOGGER.info("Connection pool {}", hibSessionProvider.getPoolMetrics());
+        LOGGER.info("Second-level cache {}", hibSessionProvider.getCacheMetrics());
+        new LoggingMetricsExporter().export(OperationMetrics.snapshot());
+        hibSessionProvider.getSlowQueryLog().ifPresent(slowQueryLog ->
+                slowQueryLog.getSlowestStatements().forEach(statement -> LOGGER.warn("Slow {}", statement)));
+        hibSessionProvider.getPlanInspector().ifPresent(inspector ->
+                inspector.getFindings().forEach(finding -> LOGGER.warn("Query plan {}", finding)));
         sessionFactory.close();
     }
 
     private static void playingWithTestBean(SessionFactory sessionFactory) {
         TestEntityDao repository = DaoFactory.getTestBeanRepository(sessionFactory);
 
-        repository.deleteAll(repository.findAll());
+        repository.deleteEverything();
 
         simpleOpr(repository);
 
@@ -86,11 +115,29 @@ public class Main {
     private static void playingWithCarEntity(SessionFactory sessionFactory) {
         CarDao repository = DaoFactory.getCarRepository(sessionFactory);
 
-        repository.deleteAll(repository.findAll());
+        repository.deleteEverything();
 
         LOGGER.info("Creating cars with batch############.%n");
         batchCarSave(repository);
+        LOGGER.info("There are {} cars, {} of them active.",
+                repository.countAll(), repository.countBy(Collections.singletonMap("active", true)));
+        final List<CarRegistration> registrations = repository.projectBy(
+                CarRegistration.class, Collections.singletonMap("active", true), "id", "firstRegistrationDate"
+        );
+        LOGGER.info("Registrations of active cars {}", registrations);
+
+        //one session and one commit for the lookups, deletes and the update below
+        UnitOfWork.run(sessionFactory, () -> findDeleteAndUpdateCars(repository));
+
+        final List<CarEntity> carEntities = repository.executeSelectQuery(
+                "SELECT * FROM cars WHERE active = :active",
+                Stream.of("active").collect(toMap(value -> value, value -> true)),
+                repository.rowMapper("id", "active", "created", "firstRegistrationDate")
+        );
+        LOGGER.info("{}", carEntities);
+    }
 
+    private static void findDeleteAndUpdateCars(CarDao repository) {
         Random random = new Random();
         Set<Serializable> ids = Stream.of((long) random.nextInt(300), (long) random.nextInt(300))
                 .collect(toSet());
@@ -115,23 +162,35 @@ public class Main {
         carByIds = repository.findAll();
         LOGGER.info("There are: {} cars.", carByIds.size());
 
-        final boolean queryResult = repository.executeUpdateQuery(
-                "update cars c set active = NOT active",
-                Collections.emptyMap()
-        );
-        LOGGER.info("Result is here {}", queryResult);
+        final int toggled = repository.updateWhere()
+                .set("active", (cb, car) -> cb.<Boolean>selectCase().when(cb.isTrue(car.get("active")), false).otherwise(true))
+                .allRows()
+                .execute();
+        LOGGER.info("Toggled active flag of {} cars.", toggled);
+    }
 
-        final List<CarEntity> carEntities = repository.executeSelectQuery(
-                "SELECT * FROM cars WHERE active = :active",
-                Stream.of("active").collect(toMap(value -> value, value -> true)),
-                fields -> new CarEntity(
-                        Long.valueOf(String.valueOf(fields[0])),
-                        Boolean.parseBoolean(String.valueOf(fields[1])),
-                        new LocalDateTimeConverter().convertToEntityAttribute(String.valueOf(fields[2])),
-                        new LocalDateTimeConverter().convertToEntityAttribute(String.valueOf(fields[3]))
-                )
-        );
-        LOGGER.info("{}", carEntities);
+    private static void concurrentLookups(HibernateSessionProvider hibSessionProvider, SessionFactory sessionFactory) {
+        ExecutorService executor = RepositoryExecutors.virtualThreads(hibSessionProvider)
+                .orElseGet(() -> RepositoryExecutors.forConnectionPool(hibSessionProvider));
+        try {
+            AsyncBasicCRUD<CarEntity> cars = DaoFactory.getAsyncRepository(
+                    DaoFactory.getCarRepository(sessionFactory), executor
+            );
+            AsyncBasicCRUD<TestEntity> testBeans = DaoFactory.getAsyncRepository(
+                    DaoFactory.getTestBeanRepository(sessionFactory), executor
+            );
+            CompletableFuture<List<CarEntity>> carsByIds = cars.findByIds(
+                    LongStream.rangeClosed(1, 50).boxed().collect(toSet())
+            );
+            CompletableFuture<List<TestEntity>> beansByIds = testBeans.findByIds(
+                    Stream.of(1, 2, 3, 4, 5).collect(toSet())
+            );
+            CompletableFuture.allOf(carsByIds, beansByIds).join();
+            LOGGER.info("Fetched concurrently {} cars and {} test beans.",
+                    carsByIds.join().size(), beansByIds.join().size());
+        } finally {
+            executor.shutdown();
+        }
     }
 
     private static void batchCarSave(CarDao repository) {
@@ -148,4 +207,19 @@ public class Main {
         savedCars.forEach(System.out::println);
     }
 
+    /** Only what a list view shows, filled by a constructor expression instead of hydrating {@link CarEntity}. */
+    public static final class CarRegistration {
+        private final Long id;
+        private final LocalDateTime firstRegistrationDate;
+
+        public CarRegistration(Long id, LocalDateTime firstRegistrationDate) {
+            this.id = id;
+            this.firstRegistrationDate = firstRegistrationDate;
+        }
+
+        @Override
+        public String toString() {
+            return id + "@" + firstRegistrationDate;
+        }
+    }
 }
@@ -1,54 +1,92 @@
 package pg.hib.dao;
 
 import org.hibernate.HibernateException;
+import org.hibernate.ScrollMode;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
 import org.hibernate.query.NativeQuery;
 import org.hibernate.query.Query;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import pg.hib.providers.HikariConnectionProvider;
+import pg.hib.providers.OperationMetrics;
+import pg.hib.providers.OperationTimer;
 import pg.hib.providers.TemplateProvider;
+import pg.hib.providers.UnitOfWork;
 
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaDelete;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.CriteriaUpdate;
 import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.io.Serializable;
-import java.lang.annotation.Annotation;
-import java.lang.reflect.Field;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static java.util.stream.Collectors.toList;
 
 abstract class AbstractRepository<EntityType extends Serializable> implements BasicCRUD<EntityType> {
 
-    private static final int DEFAULT_BATCH_SIZE = 20;
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    private static final int COPY_CHUNK_ROWS = 50_000;
+    private static final long COPY_PROGRESS_INTERVAL = 1_000_000;
+    private static final int MAX_BIND_PARAMETERS = Short.MAX_VALUE;
 
     protected final SessionFactory sessionFactory;
     protected final Logger logger;
     protected final String entityName;
+    protected final EntityMetadata<EntityType> metadata;
+    private final String repositoryName;
     private final Class<EntityType> entityClazz;
     private final int batchSize;
+    private final int fetchSize;
+    private final int inClauseChunkSize;
+    private final IdBindingMode idBindingMode;
 
-    protected AbstractRepository(SessionFactory sessionFactory, Class<EntityType> entityClazz, int batchSize) {
+    protected AbstractRepository(SessionFactory sessionFactory, Class<EntityType> entityClazz, RepositorySettings settings) {
         this.sessionFactory = sessionFactory;
         this.entityClazz = entityClazz;
-        this.entityName = entityClazz.getSimpleName();
-        this.batchSize = batchSize;
+        this.metadata = EntityMetadataRegistry.forSessionFactory(sessionFactory).get(entityClazz);
+        this.entityName = metadata.getEntityName();
+        this.batchSize = settings.getBatchSize();
+        this.fetchSize = settings.getFetchSize();
+        this.inClauseChunkSize = settings.getInClauseChunkSize();
+        this.idBindingMode = settings.getIdBindingMode();
+        this.repositoryName = getClass().getSimpleName();
         logger = LoggerFactory.getLogger(getClass());
     }
 
+    protected AbstractRepository(SessionFactory sessionFactory, Class<EntityType> entityClazz, int batchSize) {
+        this(sessionFactory, entityClazz, RepositorySettings.builder().batchSize(batchSize).build());
+    }
+
     protected AbstractRepository(SessionFactory sessionFactory, Class<EntityType> entityClazz) {
-        this(sessionFactory, entityClazz, DEFAULT_BATCH_SIZE);
+        this(sessionFactory, entityClazz, RepositorySettings.defaults());
     }
 
     @Override
     public List<EntityType> findAll() {
-        try (Session session = sessionFactory.openSession()) {
-            return TemplateProvider.collectionTemplate(session, () -> {
-                final LinkedList<String> idNames = new LinkedList<>(getIdNameAndType().keySet());
+        try (OperationTimer timer = time("findAll"); Session session = openSession()) {
+            return TemplateProvider.readOnlyCollectionTemplate(session, () -> {
                 @SuppressWarnings("unchecked")
-                Query<List<EntityType>> query = session.createQuery(
-                        String.format("FROM %s t ORDER BY t.%s", entityClazz.getSimpleName(), idNames.getFirst()));
+                Query<List<EntityType>> query = session.createQuery(metadata.getFindAllHql());
                 return castCollection(query);
             });
         } catch (Exception ex) {
@@ -58,9 +96,127 @@ abstract class AbstractRepository<EntityType extends Serializable> implements Ba
     }
 
     @Override
-    public Optional<EntityType> findById(Serializable id) {
+    public Stream<EntityType> streamAll() {
+        final String hql = metadata.getFindAllHql();
+        final Session session = openSession();
+        final OperationTimer timer = OperationMetrics.startDetached(repositoryName, "streamAll");
+        try {
+            return TemplateProvider.streamTemplate(
+                    session,
+                    () -> session.createQuery(hql).setFetchSize(fetchSize).scroll(ScrollMode.FORWARD_ONLY),
+                    row -> {
+                        timer.rows(1);
+                        return entityClazz.cast(row[0]);
+                    },
+                    fetchSize
+            ).onClose(timer::close);
+        } catch (Exception ex) {
+            logger.error("Something went wrong.", ex);
+            timer.failed();
+            timer.close();
+            throw new HibernateException(ex);
+        }
+    }
+
+    @Override
+    public ParallelScan parallelScan(int partitions, Consumer<EntityType> consumer) {
+        if (partitions < 1) {
+            throw new IllegalArgumentException("At least one partition is required.");
+        }
+        if (!metadata.isIntegralId()) {
+            throw new HibernateException(String.format(
+                    "Parallel scan needs an integral id, %s has %s.", entityName, metadata.getIdType().getSimpleName()
+            ));
+        }
+        final List<ParallelScan.Partition> ranges = splitIdRange(partitions);
+        final AtomicBoolean cancelled = new AtomicBoolean();
+        if (ranges.isEmpty()) {
+            return new ParallelScan(ranges, CompletableFuture.completedFuture(0L), cancelled);
+        }
+        final OperationTimer timer = OperationMetrics.startDetached(repositoryName, "parallelScan");
+        //partitions beyond the executor's threads wait in its queue instead of in the connection pool
+        final Executor executor = scanExecutor();
+        final CompletableFuture<?>[] scans = ranges.stream()
+                .map(partition -> CompletableFuture.runAsync(() -> scanPartition(partition, consumer, cancelled), executor))
+                .toArray(CompletableFuture[]::new);
+        final CompletableFuture<Long> completion = CompletableFuture.allOf(scans)
+                .thenApply(ignored -> ranges.stream().mapToLong(ParallelScan.Partition::getRowsScanned).sum())
+                .whenComplete((rows, ex) -> {
+                    if (ex != null) {
+                        timer.failed();
+                    } else {
+                        timer.rows(rows);
+                    }
+                    timer.close();
+                });
+        return new ParallelScan(ranges, completion, cancelled);
+    }
+
+    private List<ParallelScan.Partition> splitIdRange(int partitions) {
+        final Optional<Object[]> range;
         try (Session session = sessionFactory.openSession()) {
-            return TemplateProvider.singleObjectTemplate(session, () -> session.get(entityClazz, id), entityClazz);
+            range = TemplateProvider.readOnlySingleObjectTemplate(
+                    session, () -> session.createQuery(metadata.getIdRangeHql(), Object[].class).getSingleResult(),
+                    Object[].class
+            );
+        } catch (Exception ex) {
+            logger.error("Something went wrong.", ex);
+            throw new HibernateException(ex);
+        }
+        if (!range.isPresent() || range.get()[0] == null) {
+            return new ArrayList<>();
+        }
+        return ParallelScan.split(((Number) range.get()[0]).longValue(), ((Number) range.get()[1]).longValue(), partitions);
+    }
+
+    /** Shared executor sized below the connection pool, the common pool when the pool is not Hikari. */
+    private Executor scanExecutor() {
+        final ConnectionProvider connectionProvider = sessionFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(ConnectionProvider.class);
+        if (connectionProvider instanceof HikariConnectionProvider) {
+            return ((HikariConnectionProvider) connectionProvider).getParallelScanExecutor();
+        }
+        return ForkJoinPool.commonPool();
+    }
+
+    private void scanPartition(ParallelScan.Partition partition, Consumer<EntityType> consumer, AtomicBoolean cancelled) {
+        final Session session = sessionFactory.openSession();
+        try (Stream<EntityType> rows = TemplateProvider.streamTemplate(
+                session,
+                () -> session.createQuery(metadata.getRangeScanHql())
+                        .setParameter("lower", metadata.toId(partition.getLowerId()))
+                        .setParameter("upper", metadata.toId(partition.getUpperId()))
+                        .setFetchSize(fetchSize)
+                        .scroll(ScrollMode.FORWARD_ONLY),
+                row -> entityClazz.cast(row[0]),
+                fetchSize
+        )) {
+            final Iterator<EntityType> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                if (cancelled.get()) {
+                    return;
+                }
+                consumer.accept(iterator.next());
+                partition.rowScanned();
+            }
+            partition.finish();
+        } catch (Exception ex) {
+            //no point in reading the other partitions once the scan as a whole has failed
+            cancelled.set(true);
+            logger.error("Scan of partition {} failed.", partition, ex);
+            throw new HibernateException(ex);
+        }
+    }
+
+    @Override
+    public Optional<EntityType> findById(Serializable id) {
+        try (OperationTimer timer = time("findById"); Session session = openSession()) {
+            return TemplateProvider.readOnlySingleObjectTemplate(session, () -> {
+                final EntityType entity = session.get(entityClazz, id);
+                OperationMetrics.recordRows(entity == null ? 0 : 1);
+                return entity;
+            }, entityClazz);
         } catch (Exception ex) {
             logger.error("Something went wrong.", ex);
             throw new HibernateException(ex);
@@ -69,57 +225,256 @@ abstract class AbstractRepository<EntityType extends Serializable> implements Ba
 
     @Override
     public List<EntityType> findByIds(Collection<Serializable> ids) {
-        try (Session session = sessionFactory.openSession()) {
-            return TemplateProvider.collectionTemplate(session, () -> getEntitiesByIds(ids, session));
+        try (OperationTimer timer = time("findByIds"); Session session = openSession()) {
+            return TemplateProvider.readOnlyCollectionTemplate(session, () -> getEntitiesByIds(ids, session));
         } catch (Exception ex) {
             logger.error("Something went wrong.", ex);
             throw new HibernateException(ex);
         }
     }
 
-    private List<EntityType> getEntitiesByIds(Collection<Serializable> ids, Session session) {
-        LinkedList<String> idNames = new LinkedList<>(getIdNameAndType().keySet());
-        @SuppressWarnings("unchecked")
-        Query<List<EntityType>> query = session.createQuery(
-                String.format("FROM %s t WHERE t.%s IN :ids", entityClazz.getSimpleName(), idNames.getFirst())
-        );
-        query.setParameter("ids", ids);
-        return castCollection(query);
+    @Override
+    public boolean existsById(Serializable id) {
+        try (OperationTimer timer = time("existsById"); Session session = openSession()) {
+            return TemplateProvider.readOnlySingleObjectTemplate(session, () -> !session
+                    .createQuery(metadata.getExistingIdsHql())
+                    .setParameterList("ids", Collections.singletonList(id))
+                    .setMaxResults(1)
+                    .list()
+                    .isEmpty(), Boolean.class
+            ).orElse(false);
+        } catch (Exception ex) {
+            logger.error("Something went wrong.", ex);
+            throw new HibernateException(ex);
+        }
     }
 
-    private LinkedHashMap<String, Class<?>> getIdNameAndType() {
-        LinkedHashMap<String, Class<?>> result = new LinkedHashMap<>(1);
-        for (Field field : entityClazz.getDeclaredFields()) {
-            for (Annotation declaredAnnotation : field.getDeclaredAnnotations()) {
-                if (declaredAnnotation.annotationType() == javax.persistence.Id.class) {
-                    result.put(field.getName(), field.getType());
+    @Override
+    public Set<Serializable> findExistingIds(Collection<Serializable> ids) {
+        try (OperationTimer timer = time("findExistingIds"); Session session = openSession()) {
+            return TemplateProvider.readOnlyCollectionTemplate(session, () -> {
+                final Set<Serializable> existing = new LinkedHashSet<>();
+                if (ids.isEmpty()) {
+                    return existing;
                 }
+                for (List<Serializable> chunk : IdBinding.paddedChunks(ids, inClauseChunkSize)) {
+                    Query<?> query = session.createQuery(metadata.getExistingIdsHql());
+                    query.setParameterList("ids", chunk);
+                    existing.addAll(castAll(query.list(), Serializable.class));
+                    OperationMetrics.recordBatch();
+                }
+                return existing;
+            });
+        } catch (Exception ex) {
+            logger.error("Something went wrong.", ex);
+            throw new HibernateException(ex);
+        }
+    }
+
+    @Override
+    public long countAll() {
+        try (OperationTimer timer = time("countAll"); Session session = openSession()) {
+            return TemplateProvider.readOnlySingleObjectTemplate(
+                    session, () -> session.createQuery(metadata.getCountHql(), Long.class).getSingleResult(), Long.class
+            ).orElse(0L);
+        } catch (Exception ex) {
+            logger.error("Something went wrong.", ex);
+            throw new HibernateException(ex);
+        }
+    }
+
+    @Override
+    public long countBy(Map<String, ?> attributeValues) {
+        try (OperationTimer timer = time("countBy"); Session session = openSession()) {
+            return TemplateProvider.readOnlySingleObjectTemplate(session, () -> {
+                CriteriaBuilder cb = session.getCriteriaBuilder();
+                CriteriaQuery<Long> count = cb.createQuery(Long.class);
+                Root<EntityType> from = count.from(entityClazz);
+                count.select(cb.count(from)).where(AttributePredicates.of(cb, from, metadata, attributeValues));
+                //query to execute: select count(*) from EntityType where attribute = :value and ...
+                return session.createQuery(count).getSingleResult();
+            }, Long.class).orElse(0L);
+        } catch (Exception ex) {
+            logger.error("Something went wrong.", ex);
+            throw new HibernateException(ex);
+        }
+    }
+
+    @Override
+    public <P> List<P> projectAll(Class<P> projection, String... attributes) {
+        return projectBy(projection, Collections.emptyMap(), attributes);
+    }
+
+    @Override
+    public <P> List<P> projectBy(Class<P> projection, Map<String, ?> attributeValues, String... attributes) {
+        if (attributes.length == 0) {
+            throw new IllegalArgumentException("At least one attribute to select is required.");
+        }
+        try (OperationTimer timer = time("projectBy"); Session session = openSession()) {
+            return TemplateProvider.readOnlyCollectionTemplate(session, () -> {
+                CriteriaBuilder cb = session.getCriteriaBuilder();
+                CriteriaQuery<P> select = cb.createQuery(projection);
+                Root<EntityType> from = select.from(entityClazz);
+                final Selection<?>[] selections = new Selection<?>[attributes.length];
+                for (int i = 0; i < attributes.length; i++) {
+                    selections[i] = from.get(metadata.resolveAttributeName(attributes[i]));
+                }
+                select.select(cb.construct(projection, selections))
+                        .where(AttributePredicates.of(cb, from, metadata, attributeValues))
+                        .orderBy(cb.asc(from.get(metadata.getIdName())));
+                //query to execute: select new Projection(t.a, t.b) from EntityType t where ... order by t.id
+                return session.createQuery(select).getResultList();
+            });
+        } catch (Exception ex) {
+            logger.error("Something went wrong.", ex);
+            throw new HibernateException(ex);
+        }
+    }
+
+    @Override
+    public KeysetPage<EntityType> findPageAfter(Serializable lastId, int pageSize) {
+        return findPageAfter(PageCursor.after(lastId, pageSize));
+    }
+
+    @Override
+    public KeysetPage<EntityType> findPageAfter(PageCursor cursor) {
+        try (OperationTimer timer = time("findPageAfter"); Session session = openSession()) {
+            @SuppressWarnings("unchecked")
+            Optional<KeysetPage<EntityType>> page = TemplateProvider.readOnlySingleObjectTemplate(
+                    session, () -> getPage(cursor, session), (Class<KeysetPage<EntityType>>) (Class<?>) KeysetPage.class
+            );
+            return page.orElseThrow(() -> new HibernateException("Page could not be fetched."));
+        } catch (Exception ex) {
+            logger.error("Something went wrong.", ex);
+            throw new HibernateException(ex);
+        }
+    }
+
+    private KeysetPage<EntityType> getPage(PageCursor cursor, Session session) {
+        final boolean afterSortValue = cursor.isSorted() && !cursor.isFirstPage();
+        final List<Object[]> rows;
+        if (afterSortValue && cursor.getLastSortValue() == null) {
+            rows = getNullSortRows(cursor, cursor.getLastId(), cursor.getPageSize() + 1, session);
+        } else {
+            final String hql = metadata.getPageHql(cursor.getSortAttribute(), cursor.isFirstPage());
+            Query<Object[]> query = session.createQuery(hql, Object[].class);
+            if (!cursor.isFirstPage()) {
+                query.setParameter("lastId", cursor.getLastId());
+                if (cursor.isSorted()) {
+                    query.setParameter("lastSort", cursor.getLastSortValue());
+                }
+            }
+            query.setMaxResults(cursor.getPageSize() + 1);
+            rows = new ArrayList<>(query.list());
+            if (afterSortValue && rows.size() <= cursor.getPageSize()) {
+                //rows with a NULL sort value follow the last non-null one
+                rows.addAll(getNullSortRows(cursor, null, cursor.getPageSize() + 1 - rows.size(), session));
             }
         }
-        return result;
+        final boolean hasNext = rows.size() > cursor.getPageSize();
+        final List<EntityType> content = new LinkedList<>();
+        PageCursor nextCursor = null;
+        for (int i = 0; i < rows.size() && i < cursor.getPageSize(); i++) {
+            final EntityType entity = entityClazz.cast(rows.get(i)[0]);
+            content.add(entity);
+            nextCursor = cursor.next(rows.get(i)[1], session.getIdentifier(entity));
+        }
+        OperationMetrics.recordRows(content.size());
+        return new KeysetPage<>(content, nextCursor, hasNext);
     }
 
-    protected List<EntityType> castCollection(Query<List<EntityType>> query) {
+    private List<Object[]> getNullSortRows(PageCursor cursor, Serializable lastId, int maxRows, Session session) {
+        final Query<Object[]> query = session.createQuery(
+                metadata.getNullSortPageHql(cursor.getSortAttribute(), lastId != null), Object[].class
+        );
+        if (lastId != null) {
+            query.setParameter("lastId", lastId);
+        }
+        return query.setMaxResults(maxRows).list();
+    }
+
+    private List<EntityType> getEntitiesByIds(Collection<? extends Serializable> ids, Session session) {
+        if (ids.isEmpty()) {
+            return new LinkedList<>();
+        }
+        if (idBindingMode == IdBindingMode.POSTGRES_ARRAY) {
+            NativeQuery<EntityType> query = session.createNativeQuery(metadata.getFindByIdArraySql(), entityClazz);
+            query.setParameter("ids", IdBinding.postgresArrayLiteral(new LinkedHashSet<>(ids)));
+            OperationMetrics.recordBatch();
+            return new LinkedList<>(query.list());
+        }
         final List<EntityType> records = new LinkedList<>();
-        for (final Object o : query.list()) {
-            records.add(entityClazz.cast(o));
+        for (List<Serializable> chunk : IdBinding.paddedChunks(ids, inClauseChunkSize)) {
+            @SuppressWarnings("unchecked")
+            Query<List<EntityType>> query = session.createQuery(metadata.getFindByIdsHql());
+            query.setParameterList("ids", chunk);
+            records.addAll(castCollection(query));
+            OperationMetrics.recordBatch();
         }
         return records;
     }
-    
+
+    private int deleteEntitiesByIds(Collection<? extends Serializable> ids, Session session) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        if (idBindingMode == IdBindingMode.POSTGRES_ARRAY) {
+            NativeQuery<?> sql = session.createNativeQuery(metadata.getDeleteByIdArraySql());
+            sql.addSynchronizedEntityClass(entityClazz);
+            sql.setParameter("ids", IdBinding.postgresArrayLiteral(new LinkedHashSet<>(ids)));
+            OperationMetrics.recordBatch();
+            return sql.executeUpdate();
+        }
+        int deleted = 0;
+        CriteriaBuilder cb = session.getCriteriaBuilder();
+        for (List<Serializable> chunk : IdBinding.paddedChunks(ids, inClauseChunkSize)) {
+            CriteriaDelete<EntityType> delete = cb.createCriteriaDelete(entityClazz);
+            Root<EntityType> from = delete.from(entityClazz);
+            delete.where(cb.in(from.get(metadata.getIdName())).value(chunk));
+            //query to execute: delete from EntityType where id in :ids
+            deleted += session.createQuery(delete).executeUpdate();
+            OperationMetrics.recordBatch();
+        }
+        return deleted;
+    }
+
+    /** Times the operation under this repository's name, see {@link OperationMetrics}. */
+    protected OperationTimer time(String operation) {
+        return OperationMetrics.start(repositoryName, operation);
+    }
+
+    /** Session of the surrounding {@link UnitOfWork} if there is one, otherwise a new session owned by the caller. */
+    protected Session openSession() {
+        return UnitOfWork.currentSession(sessionFactory).orElseGet(sessionFactory::openSession);
+    }
+
+    /** Stores the query's results in the entity's query cache region, invalidated by any write to its table. */
+    protected <T> Query<T> cacheable(Query<T> query) {
+        return query.setCacheable(true).setCacheRegion(metadata.getQueryCacheRegion());
+    }
+
+    protected List<EntityType> castCollection(Query<List<EntityType>> query) {
+        return castAll(query.list(), entityClazz);
+    }
+
     protected List<EntityType> castCollection(Collection<Serializable> entities) {
-        final List<EntityType> records = new LinkedList<>();
-        for (final Serializable o : entities) {
-            records.add(entityClazz.cast(o));
+        return castAll(entities, entityClazz);
+    }
+
+    private static <T> List<T> castAll(Collection<?> source, Class<T> type) {
+        final List<T> records = new LinkedList<>();
+        for (final Object o : source) {
+            records.add(type.cast(o));
         }
         return records;
     }
 
     @Override
     public Optional<EntityType> save(EntityType entity) {
-        try (Session session = sessionFactory.openSession()) {
+        try (OperationTimer timer = time("save"); Session session = openSession()) {
             return TemplateProvider.singleObjectTemplate(session, () -> {
                 Serializable id = session.save(entity);
+                OperationMetrics.recordRows(1);
                 return session.get(entityClazz, id);
             }, entityClazz);
         } catch (Exception ex) {
@@ -129,7 +484,12 @@ abstract class AbstractRepository<EntityType extends Serializable> implements Ba
     }
 
     public List<EntityType> saveAll(List<EntityType> entities) {
-        try (Session session = sessionFactory.openSession()) {
+        try (OperationTimer timer = time("saveAll"); Session session = openSession()) {
+            //a unit of work shares its session, clearing it would detach what the caller loaded before
+            final boolean owner = !session.getTransaction().isActive();
+            if (owner) {
+                session.setJdbcBatchSize(batchSize);
+            }
             return TemplateProvider.collectionTemplate(session, () -> {
                 Set<Serializable> ids = new LinkedHashSet<>();
                 boolean batchExecuted = false;
@@ -138,26 +498,18 @@ abstract class AbstractRepository<EntityType extends Serializable> implements Ba
                     ids.add(id);
                     batchExecuted = false;
                     if (i > 0 && i % batchSize == 0) {
-                        session.flush();
-                        session.clear();
+                        flushBatch(session, owner);
                         batchExecuted = true;
                     }
                 }
                 if (!batchExecuted) {
-                    session.flush();
-                    session.clear();
+                    flushBatch(session, owner);
                 }
 
                 if (ids.stream().allMatch(item -> item.getClass() == entityClazz)) {
                     return castCollection(ids);
                 } else {
-                    LinkedList<String> idNames = new LinkedList<>(getIdNameAndType().keySet());
-                    @SuppressWarnings("unchecked")
-                    Query<List<EntityType>> query = session.createQuery(
-                            String.format("FROM %s t WHERE t.%s IN :ids", entityClazz.getSimpleName(), idNames.getFirst())
-                    );
-                    query.setParameter("ids", ids);
-                    return castCollection(query);
+                    return getEntitiesByIds(ids, session);
                 }
             });
         } catch (Exception ex) {
@@ -166,10 +518,244 @@ abstract class AbstractRepository<EntityType extends Serializable> implements Ba
         }
     }
 
+    private static void flushBatch(Session session, boolean owner) {
+        session.flush();
+        if (owner) {
+            session.clear();
+        }
+        OperationMetrics.recordBatch();
+    }
+
+    @Override
+    public int upsertAll(Collection<EntityType> entities, List<String> conflictColumns) {
+        if (conflictColumns == null || conflictColumns.isEmpty()) {
+            throw new IllegalArgumentException("At least one conflict column is required.");
+        }
+        final List<String> conflictColumnNames = conflictColumns.stream().map(metadata::resolveColumnName).collect(toList());
+        try (OperationTimer timer = time("upsertAll"); Session session = openSession()) {
+            Optional<Integer> upserted = TemplateProvider.singleObjectTemplate(
+                    session,
+                    () -> {
+                        SecondLevelCache.evictOnCommit(session.getTransaction(), sessionFactory, entityClazz);
+                        return session.doReturningWork(connection -> upsert(connection, session, entities, conflictColumnNames));
+                    },
+                    Integer.class
+            );
+            OperationMetrics.recordRows(upserted.orElse(0));
+            return upserted.orElse(0);
+        } catch (Exception ex) {
+            logger.error("Something went wrong.", ex);
+            throw new HibernateException(ex);
+        }
+    }
+
+    private int upsert(Connection connection, Session session, Collection<EntityType> entities, List<String> conflictColumns)
+            throws SQLException {
+        final AbstractEntityPersister persister = metadata.getPersister();
+        final SharedSessionContractImplementor sessionImplementor = session.unwrap(SharedSessionContractImplementor.class);
+        final Collection<EntityType> distinct = lastPerConflictKey(entities, conflictColumns, sessionImplementor);
+        final List<EntityType> withId = new ArrayList<>(distinct.size());
+        final List<EntityType> withoutId = new ArrayList<>();
+        for (EntityType entity : distinct) {
+            if (persister.getIdentifier(entity, sessionImplementor) != null) {
+                withId.add(entity);
+            } else if (metadata.isIdAssignedByInsert()) {
+                withoutId.add(entity);
+            } else {
+                persister.setIdentifier(entity, persister.getIdentifierGenerator().generate(sessionImplementor, entity),
+                        sessionImplementor);
+                withId.add(entity);
+            }
+        }
+        final int affected = upsertBatches(connection, sessionImplementor, withId, true, conflictColumns)
+                + upsertBatches(connection, sessionImplementor, withoutId, false, conflictColumns);
+        if (!withId.isEmpty() && metadata.isIdAssignedByInsert()) {
+            //explicit ids do not advance the identity sequence, later inserts would run into them
+            try (PreparedStatement statement = connection.prepareStatement(metadata.getSyncIdSequenceSql())) {
+                statement.execute();
+            }
+        }
+        return affected;
+    }
+
+    /**
+     * PostgreSQL rejects a statement that updates the same row twice, so only the last entity per conflict key is
+     * kept. Keys with a {@code null} never conflict and are all kept.
+     */
+    private Collection<EntityType> lastPerConflictKey(Collection<EntityType> entities, List<String> conflictColumns,
+                                                      SharedSessionContractImplementor session) {
+        final AbstractEntityPersister persister = metadata.getPersister();
+        final List<ColumnMapping> keyColumns = new ArrayList<>(conflictColumns.size());
+        for (String column : conflictColumns) {
+            //null stands for the id column
+            keyColumns.add(metadata.getColumns().stream()
+                    .filter(mapping -> mapping.getColumnName().equals(column))
+                    .findFirst()
+                    .orElse(null));
+        }
+        final Map<List<Object>, EntityType> lastPerKey = new LinkedHashMap<>(entities.size() * 2);
+        final List<EntityType> unkeyed = new ArrayList<>();
+        for (EntityType entity : entities) {
+            final List<Object> key = new ArrayList<>(keyColumns.size());
+            for (ColumnMapping mapping : keyColumns) {
+                key.add(mapping == null
+                        ? persister.getIdentifier(entity, session)
+                        : mapping.relationalValue(entity, persister));
+            }
+            if (key.contains(null)) {
+                unkeyed.add(entity);
+            } else {
+                //moves a repeated key to the position of its last occurrence
+                lastPerKey.remove(key);
+                lastPerKey.put(key, entity);
+            }
+        }
+        if (unkeyed.isEmpty() && lastPerKey.size() == entities.size()) {
+            return entities;
+        }
+        final List<EntityType> distinct = new ArrayList<>(lastPerKey.values());
+        distinct.addAll(unkeyed);
+        return distinct;
+    }
+
+    private int upsertBatches(Connection connection, SharedSessionContractImplementor session, List<EntityType> entities,
+                              boolean withId, List<String> conflictColumns) throws SQLException {
+        final AbstractEntityPersister persister = metadata.getPersister();
+        final int columnCount = metadata.getColumns().size() + (withId ? 1 : 0);
+        final int rowsPerStatement = Math.max(1, Math.min(batchSize, MAX_BIND_PARAMETERS / columnCount));
+        int affected = 0;
+        for (int from = 0; from < entities.size(); from += rowsPerStatement) {
+            final List<EntityType> batch = entities.subList(from, Math.min(from + rowsPerStatement, entities.size()));
+            final String sql = metadata.getUpsertSql(withId, conflictColumns, batch.size());
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                int index = 1;
+                for (EntityType entity : batch) {
+                    if (withId) {
+                        statement.setObject(index++, persister.getIdentifier(entity, session));
+                    }
+                    for (ColumnMapping mapping : metadata.getColumns()) {
+                        bind(statement, index++, mapping.relationalValue(entity, persister), mapping.getSqlType());
+                    }
+                }
+                affected += statement.executeUpdate();
+                OperationMetrics.recordBatch();
+            }
+        }
+        return affected;
+    }
+
+    private static void bind(PreparedStatement statement, int index, Object value, int sqlType) throws SQLException {
+        if (value == null) {
+            statement.setNull(index, sqlType);
+        } else {
+            statement.setObject(index, value);
+        }
+    }
+
+    @Override
+    public BulkLoadResult bulkLoad(Iterable<EntityType> entities) {
+        return bulkLoad(entities, CopyFormat.TEXT);
+    }
+
+    @Override
+    public BulkLoadResult bulkLoad(Iterable<EntityType> entities, CopyFormat format) {
+        try (OperationTimer timer = time("bulkLoad"); Session session = openSession()) {
+            Optional<BulkLoadResult> result = TemplateProvider.singleObjectTemplate(
+                    session,
+                    () -> {
+                        SecondLevelCache.evictOnCommit(session.getTransaction(), sessionFactory, entityClazz);
+                        return session.doReturningWork(connection -> copyIn(connection, session, entities, format));
+                    },
+                    BulkLoadResult.class
+            );
+            result.ifPresent(loaded -> logger.info("Bulk loaded into {}: {}.", metadata.getTableName(), loaded));
+            result.ifPresent(loaded -> OperationMetrics.recordRows(loaded.getRows()));
+            return result.orElseThrow(() -> new HibernateException("Bulk load did not report any result."));
+        } catch (Exception ex) {
+            logger.error("Something went wrong.", ex);
+            throw new HibernateException(ex);
+        }
+    }
+
+    /**
+     * Rows go through one COPY per chunk of {@link #COPY_CHUNK_ROWS}: generated ids have to be fetched from the
+     * sequence before the COPY starts, as the connection can not run other statements while it is in progress.
+     */
+    private BulkLoadResult copyIn(Connection connection, Session session, Iterable<EntityType> entities, CopyFormat format)
+            throws SQLException {
+        final long start = System.nanoTime();
+        final PgCopyEncoder encoder = PgCopyEncoder.forFormat(format);
+        final String copySql = metadata.getCopySql(encoder);
+        final PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        final SharedSessionContractImplementor sessionImplementor = session.unwrap(SharedSessionContractImplementor.class);
+        final PgCopyEncoder.CopyBuffer buffer = new PgCopyEncoder.CopyBuffer(COPY_BUFFER_SIZE + 1024);
+        final List<EntityType> chunk = new ArrayList<>(COPY_CHUNK_ROWS);
+        long rows = 0;
+        for (EntityType entity : entities) {
+            chunk.add(entity);
+            if (chunk.size() == COPY_CHUNK_ROWS) {
+                rows += copyChunk(pgConnection.getCopyAPI().copyIn(copySql), encoder, buffer, chunk, sessionImplementor);
+                chunk.clear();
+                if (rows % COPY_PROGRESS_INTERVAL == 0) {
+                    logger.info("Bulk load into {}: {}.", metadata.getTableName(),
+                            new BulkLoadResult(rows, System.nanoTime() - start));
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            rows += copyChunk(pgConnection.getCopyAPI().copyIn(copySql), encoder, buffer, chunk, sessionImplementor);
+        }
+        return new BulkLoadResult(rows, System.nanoTime() - start);
+    }
+
+    private long copyChunk(CopyIn copyIn, PgCopyEncoder encoder, PgCopyEncoder.CopyBuffer buffer, List<EntityType> chunk,
+                           SharedSessionContractImplementor session) throws SQLException {
+        final AbstractEntityPersister persister = metadata.getPersister();
+        final boolean withId = !metadata.isIdAssignedByInsert();
+        final int[] sqlTypes = metadata.getCopySqlTypes();
+        final Object[] values = new Object[sqlTypes.length];
+        if (withId) {
+            for (EntityType entity : chunk) {
+                if (persister.getIdentifier(entity, session) == null) {
+                    persister.setIdentifier(entity, persister.getIdentifierGenerator().generate(session, entity), session);
+                }
+            }
+        }
+        final DataOutputStream out = new DataOutputStream(buffer);
+        try {
+            buffer.reset();
+            encoder.writeHeader(out);
+            for (EntityType entity : chunk) {
+                int column = 0;
+                if (withId) {
+                    values[column++] = persister.getIdentifier(entity, session);
+                }
+                for (ColumnMapping mapping : metadata.getColumns()) {
+                    values[column++] = mapping.relationalValue(entity, persister);
+                }
+                encoder.writeRow(out, values, sqlTypes);
+                if (buffer.size() >= COPY_BUFFER_SIZE) {
+                    buffer.flushTo(copyIn);
+                }
+            }
+            encoder.writeTrailer(out);
+            buffer.flushTo(copyIn);
+            OperationMetrics.recordBatch();
+            return copyIn.endCopy();
+        } catch (IOException ex) {
+            throw new SQLException("Could not encode rows for COPY.", ex);
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+
     @Override
     public boolean delete(EntityType entity) {
-        try (Session session = sessionFactory.openSession()) {
+        try (OperationTimer timer = time("delete"); Session session = openSession()) {
             TemplateProvider.voidTemplate(session, () -> session.delete(entity));
+            OperationMetrics.recordRows(1);
             return true;
         } catch (Exception ex) {
             logger.error("Something went wrong.", ex);
@@ -179,17 +765,16 @@ abstract class AbstractRepository<EntityType extends Serializable> implements Ba
 
     @Override
     public boolean deleteByIds(Collection<Serializable> entityIds) {
-        try (Session session = sessionFactory.openSession()) {
-            Optional<Boolean> deleted = TemplateProvider.singleObjectTemplate(session, () -> {
-                final LinkedList<String> idNames = new LinkedList<>(getIdNameAndType().keySet());
-                CriteriaBuilder cb = session.getCriteriaBuilder();
-                CriteriaDelete<EntityType> delete = cb.createCriteriaDelete(entityClazz);
-                Root<EntityType> from = delete.from(entityClazz);
-                delete.where(cb.in(from.get(idNames.getFirst())).value(entityIds));
-                //query to execute: delete from EntityType where id in :ids
-                int result = session.createQuery(delete).executeUpdate();
-                return result == entityIds.size();
-            }, Boolean.class);
+        try (OperationTimer timer = time("deleteByIds"); Session session = openSession()) {
+            Optional<Boolean> deleted = TemplateProvider.singleObjectTemplate(
+                    session,
+                    () -> {
+                        final int deletedRows = deleteEntitiesByIds(entityIds, session);
+                        OperationMetrics.recordRows(deletedRows);
+                        return deletedRows == IdBinding.distinctCount(entityIds);
+                    },
+                    Boolean.class
+            );
             return deleted.orElse(false);
         } catch (Exception ex) {
             logger.error("Something went wrong.", ex);
@@ -197,20 +782,18 @@ abstract class AbstractRepository<EntityType extends Serializable> implements Ba
         }
     }
 
+    /**
+     * Deletes by the entities' ids in chunked set-based statements instead of one {@code session.delete} per entity,
+     * so nothing is loaded or reattached; entity callbacks and cascades do not run. Entities without an id are skipped.
+     */
     @Override
     public boolean deleteAll(Collection<EntityType> entities) {
-        try (Session session = sessionFactory.openSession()) {
+        try (OperationTimer timer = time("deleteAll"); Session session = openSession()) {
             Optional<Boolean> deleted = TemplateProvider.singleObjectTemplate(session, () -> {
-                int i = 0;
-                for (EntityType entity : entities) {
-                    session.delete(entity);
-                    i++;
-                    if (i % batchSize == 0) {
-                        session.flush();
-                        session.clear();
-                    }
-                }
-                return true;
+                final Set<Serializable> ids = idsOf(entities, session);
+                final int deletedRows = deleteEntitiesByIds(ids, session);
+                OperationMetrics.recordRows(deletedRows);
+                return deletedRows == ids.size();
             }, Boolean.class);
             return deleted.orElse(false);
         } catch (Exception ex) {
@@ -219,14 +802,62 @@ abstract class AbstractRepository<EntityType extends Serializable> implements Ba
         }
     }
 
+    private Set<Serializable> idsOf(Collection<EntityType> entities, Session session) {
+        final AbstractEntityPersister persister = metadata.getPersister();
+        final SharedSessionContractImplementor sessionImplementor = session.unwrap(SharedSessionContractImplementor.class);
+        final Set<Serializable> ids = new LinkedHashSet<>(entities.size() * 2);
+        for (EntityType entity : entities) {
+            final Serializable id = persister.getIdentifier(entity, sessionImplementor);
+            if (id != null) {
+                ids.add(id);
+            }
+            if (session.contains(entity)) {
+                //a unit of work must not flush entities whose rows are gone
+                session.detach(entity);
+            }
+        }
+        return ids;
+    }
+
+    @Override
+    public int deleteEverything() {
+        try (OperationTimer timer = time("deleteEverything"); Session session = openSession()) {
+            Optional<Integer> deleted = TemplateProvider.singleObjectTemplate(session, () -> {
+                final int rows = session.createQuery(metadata.getDeleteEverythingHql()).executeUpdate();
+                OperationMetrics.recordRows(rows);
+                return rows;
+            }, Integer.class);
+            return deleted.orElse(0);
+        } catch (Exception ex) {
+            logger.error("Something went wrong.", ex);
+            throw new HibernateException(ex);
+        }
+    }
+
+    @Override
+    public void truncate() {
+        try (OperationTimer timer = time("truncate"); Session session = openSession()) {
+            TemplateProvider.voidTemplate(session, () -> {
+                NativeQuery<?> sql = session.createNativeQuery(metadata.getTruncateSql());
+                //invalidates the entity and query cache regions of the table
+                sql.addSynchronizedEntityClass(entityClazz);
+                sql.executeUpdate();
+            });
+        } catch (Exception ex) {
+            logger.error("Something went wrong.", ex);
+            throw new HibernateException(ex);
+        }
+    }
+
     @Override
     public boolean executeUpdateQuery(final String updateQuery, final Map<String, ?> paramMap) {
-        try (Session session = sessionFactory.openSession()) {
+        try (OperationTimer timer = time("executeUpdateQuery"); Session session = openSession()) {
             Optional<Boolean> queryExec = TemplateProvider.singleObjectTemplate(session, () -> {
                 @SuppressWarnings("rawtypes")
                 NativeQuery sql = session.createSQLQuery(updateQuery);
                 setQueryParameters(sql, paramMap);
                 final int result = sql.executeUpdate();
+                OperationMetrics.recordRows(result);
                 logger.info("The result of the query {}.", result);
                 return true;
             }, Boolean.class);
@@ -237,6 +868,30 @@ abstract class AbstractRepository<EntityType extends Serializable> implements Ba
         }
     }
 
+    @Override
+    public UpdateWhere<EntityType> updateWhere() {
+        return new UpdateWhere<>(metadata, this::executeUpdateWhere);
+    }
+
+    private int executeUpdateWhere(UpdateWhere<EntityType> update) {
+        try (OperationTimer timer = time("updateWhere"); Session session = openSession()) {
+            Optional<Integer> updated = TemplateProvider.singleObjectTemplate(session, () -> {
+                CriteriaBuilder cb = session.getCriteriaBuilder();
+                CriteriaUpdate<EntityType> criteria = cb.createCriteriaUpdate(entityClazz);
+                Root<EntityType> from = criteria.from(entityClazz);
+                update.applyTo(cb, criteria, from);
+                //query to execute: update EntityType set attribute = :value where ...
+                final int rows = session.createQuery(criteria).executeUpdate();
+                OperationMetrics.recordRows(rows);
+                return rows;
+            }, Integer.class);
+            return updated.orElse(0);
+        } catch (Exception ex) {
+            logger.error("Something went wrong.", ex);
+            throw new HibernateException(ex);
+        }
+    }
+
     private void setQueryParameters(Query<?> sql, Map<String, ?> paramMap) {
         if (paramMap != null && !paramMap.isEmpty()) {
             for (Map.Entry<String, ?> entry : paramMap.entrySet()) {
@@ -252,11 +907,16 @@ abstract class AbstractRepository<EntityType extends Serializable> implements Ba
         }
     }
 
+    @Override
+    public EntityFieldMapper<EntityType> rowMapper(String... columns) {
+        return metadata.getRowMapper(Arrays.asList(columns));
+    }
+
     @Override
     public List<EntityType> executeSelectQuery(
             final String selectQuery, final Map<String, Object> paramMap, final EntityFieldMapper<EntityType> mapper
     ) {
-        try (Session session = sessionFactory.openSession()) {
+        try (OperationTimer timer = time("executeSelectQuery"); Session session = openSession()) {
             return TemplateProvider.collectionTemplate(session, () -> {
                 @SuppressWarnings("unchecked")
                 NativeQuery<Object[]> sql = session.createSQLQuery(selectQuery);
@@ -269,4 +929,27 @@ abstract class AbstractRepository<EntityType extends Serializable> implements Ba
         }
     }
 
+    @Override
+    public Stream<EntityType> streamSelectQuery(
+            final String selectQuery, final Map<String, Object> paramMap, final EntityFieldMapper<EntityType> mapper
+    ) {
+        final Session session = openSession();
+        final OperationTimer timer = OperationMetrics.startDetached(repositoryName, "streamSelectQuery");
+        try {
+            return TemplateProvider.streamTemplate(session, () -> {
+                NativeQuery<?> sql = session.createNativeQuery(selectQuery);
+                setQueryParameters(sql, paramMap);
+                return sql.setFetchSize(fetchSize).scroll(ScrollMode.FORWARD_ONLY);
+            }, row -> {
+                timer.rows(1);
+                return mapper.map(row);
+            }, fetchSize).onClose(timer::close);
+        } catch (Exception ex) {
+            logger.error("Something went wrong.", ex);
+            timer.failed();
+            timer.close();
+            throw new HibernateException(ex);
+        }
+    }
+
 }
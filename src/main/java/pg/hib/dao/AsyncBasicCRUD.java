@@ -0,0 +1,65 @@
+package pg.hib.dao;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking view of a {@link BasicCRUD}; a full executor fails the returned future with a
+ * {@link java.util.concurrent.RejectedExecutionException}. Streams stay on {@link #blocking()}, they are consumed lazily.
+ */
+public interface AsyncBasicCRUD<EntityType extends Serializable> {
+    CompletableFuture<List<EntityType>> findAll();
+
+    CompletableFuture<Optional<EntityType>> findById(Serializable id);
+
+    CompletableFuture<List<EntityType>> findByIds(Collection<Serializable> ids);
+
+    CompletableFuture<Boolean> existsById(Serializable id);
+
+    CompletableFuture<Set<Serializable>> findExistingIds(Collection<Serializable> ids);
+
+    CompletableFuture<Long> countAll();
+
+    CompletableFuture<Long> countBy(Map<String, ?> attributeValues);
+
+    <P> CompletableFuture<List<P>> projectAll(Class<P> projection, String... attributes);
+
+    <P> CompletableFuture<List<P>> projectBy(Class<P> projection, Map<String, ?> attributeValues, String... attributes);
+
+    CompletableFuture<KeysetPage<EntityType>> findPageAfter(Serializable lastId, int pageSize);
+
+    CompletableFuture<KeysetPage<EntityType>> findPageAfter(PageCursor cursor);
+
+    CompletableFuture<Optional<EntityType>> save(EntityType entity);
+
+    CompletableFuture<List<EntityType>> saveAll(List<EntityType> entities);
+
+    CompletableFuture<Integer> upsertAll(Collection<EntityType> entities, List<String> conflictColumns);
+
+    CompletableFuture<BulkLoadResult> bulkLoad(Iterable<EntityType> entities);
+
+    CompletableFuture<BulkLoadResult> bulkLoad(Iterable<EntityType> entities, CopyFormat format);
+
+    CompletableFuture<Boolean> delete(EntityType entity);
+
+    CompletableFuture<Boolean> deleteByIds(Collection<Serializable> entities);
+
+    CompletableFuture<Boolean> deleteAll(Collection<EntityType> entities);
+
+    CompletableFuture<Integer> deleteEverything();
+
+    CompletableFuture<Void> truncate();
+
+    CompletableFuture<List<EntityType>> executeSelectQuery(
+            String selectQuery, final Map<String, Object> paramMap, final EntityFieldMapper<EntityType> mapper
+    );
+
+    CompletableFuture<Boolean> executeUpdateQuery(final String sqlQuery, final Map<String, ?> paramMap);
+
+    BasicCRUD<EntityType> blocking();
+}
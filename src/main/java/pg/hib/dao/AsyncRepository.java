@@ -0,0 +1,161 @@
+package pg.hib.dao;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+class AsyncRepository<EntityType extends Serializable> implements AsyncBasicCRUD<EntityType> {
+
+    private final BasicCRUD<EntityType> delegate;
+    private final Executor executor;
+
+    AsyncRepository(BasicCRUD<EntityType> delegate, Executor executor) {
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletableFuture<List<EntityType>> findAll() {
+        return submit(delegate::findAll);
+    }
+
+    @Override
+    public CompletableFuture<Optional<EntityType>> findById(Serializable id) {
+        return submit(() -> delegate.findById(id));
+    }
+
+    @Override
+    public CompletableFuture<List<EntityType>> findByIds(Collection<Serializable> ids) {
+        return submit(() -> delegate.findByIds(ids));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> existsById(Serializable id) {
+        return submit(() -> delegate.existsById(id));
+    }
+
+    @Override
+    public CompletableFuture<Set<Serializable>> findExistingIds(Collection<Serializable> ids) {
+        return submit(() -> delegate.findExistingIds(ids));
+    }
+
+    @Override
+    public CompletableFuture<Long> countAll() {
+        return submit(delegate::countAll);
+    }
+
+    @Override
+    public CompletableFuture<Long> countBy(Map<String, ?> attributeValues) {
+        return submit(() -> delegate.countBy(attributeValues));
+    }
+
+    @Override
+    public <P> CompletableFuture<List<P>> projectAll(Class<P> projection, String... attributes) {
+        return submit(() -> delegate.projectAll(projection, attributes));
+    }
+
+    @Override
+    public <P> CompletableFuture<List<P>> projectBy(
+            Class<P> projection, Map<String, ?> attributeValues, String... attributes
+    ) {
+        return submit(() -> delegate.projectBy(projection, attributeValues, attributes));
+    }
+
+    @Override
+    public CompletableFuture<KeysetPage<EntityType>> findPageAfter(Serializable lastId, int pageSize) {
+        return submit(() -> delegate.findPageAfter(lastId, pageSize));
+    }
+
+    @Override
+    public CompletableFuture<KeysetPage<EntityType>> findPageAfter(PageCursor cursor) {
+        return submit(() -> delegate.findPageAfter(cursor));
+    }
+
+    @Override
+    public CompletableFuture<Optional<EntityType>> save(EntityType entity) {
+        return submit(() -> delegate.save(entity));
+    }
+
+    @Override
+    public CompletableFuture<List<EntityType>> saveAll(List<EntityType> entities) {
+        return submit(() -> delegate.saveAll(entities));
+    }
+
+    @Override
+    public CompletableFuture<Integer> upsertAll(Collection<EntityType> entities, List<String> conflictColumns) {
+        return submit(() -> delegate.upsertAll(entities, conflictColumns));
+    }
+
+    @Override
+    public CompletableFuture<BulkLoadResult> bulkLoad(Iterable<EntityType> entities) {
+        return submit(() -> delegate.bulkLoad(entities));
+    }
+
+    @Override
+    public CompletableFuture<BulkLoadResult> bulkLoad(Iterable<EntityType> entities, CopyFormat format) {
+        return submit(() -> delegate.bulkLoad(entities, format));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> delete(EntityType entity) {
+        return submit(() -> delegate.delete(entity));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> deleteByIds(Collection<Serializable> entities) {
+        return submit(() -> delegate.deleteByIds(entities));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> deleteAll(Collection<EntityType> entities) {
+        return submit(() -> delegate.deleteAll(entities));
+    }
+
+    @Override
+    public CompletableFuture<Integer> deleteEverything() {
+        return submit(delegate::deleteEverything);
+    }
+
+    @Override
+    public CompletableFuture<Void> truncate() {
+        return submit(() -> {
+            delegate.truncate();
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<List<EntityType>> executeSelectQuery(
+            String selectQuery, Map<String, Object> paramMap, EntityFieldMapper<EntityType> mapper
+    ) {
+        return submit(() -> delegate.executeSelectQuery(selectQuery, paramMap, mapper));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> executeUpdateQuery(String sqlQuery, Map<String, ?> paramMap) {
+        return submit(() -> delegate.executeUpdateQuery(sqlQuery, paramMap));
+    }
+
+    @Override
+    public BasicCRUD<EntityType> blocking() {
+        return delegate;
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> operation) {
+        try {
+            return CompletableFuture.supplyAsync(operation, executor);
+        } catch (RejectedExecutionException ex) {
+            //saturation is reported through the future so callers handle it like any other failure
+            CompletableFuture<T> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(ex);
+            return rejected;
+        }
+    }
+}
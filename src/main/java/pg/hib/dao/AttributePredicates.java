@@ -0,0 +1,41 @@
+package pg.hib.dao;
+
+import org.hibernate.HibernateException;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/** Attribute-equals-value restrictions shared by the count, projection and bulk update queries. */
+final class AttributePredicates {
+
+    private AttributePredicates() { }
+
+    /** Names are attribute or column names; {@code null} matches {@code IS NULL}, a collection matches {@code IN}. */
+    static Predicate[] of(CriteriaBuilder cb, Root<?> from, EntityMetadata<?> metadata, Map<String, ?> attributeValues) {
+        if (attributeValues == null || attributeValues.isEmpty()) {
+            return new Predicate[0];
+        }
+        final List<Predicate> predicates = new ArrayList<>(attributeValues.size());
+        for (Map.Entry<String, ?> entry : attributeValues.entrySet()) {
+            predicates.add(of(cb, from.get(metadata.resolveAttributeName(entry.getKey())), entry.getKey(), entry.getValue()));
+        }
+        return predicates.toArray(new Predicate[0]);
+    }
+
+    static Predicate of(CriteriaBuilder cb, Path<Object> attribute, String name, Object value) {
+        if (value == null) {
+            return cb.isNull(attribute);
+        } else if (value instanceof Collection) {
+            return ((Collection<?>) value).isEmpty() ? cb.disjunction() : attribute.in((Collection<?>) value);
+        } else if (value instanceof Map) {
+            throw new HibernateException(String.format("Attribute %s can not be compared with a map.", name));
+        }
+        return cb.equal(attribute, value);
+    }
+}
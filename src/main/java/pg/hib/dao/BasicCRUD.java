@@ -5,27 +5,95 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public interface BasicCRUD<EntityType extends Serializable> {
     List<EntityType> findAll();
 
+    /** The returned stream keeps a session open, so it has to be closed, e.g. with try-with-resources. */
+    Stream<EntityType> streamAll();
+
+    /**
+     * Splits the id range into partitions read concurrently, each in its own session and connection, and returns
+     * immediately. The consumer is called from several threads at once. Only integral ids are supported. At most as
+     * many partitions as the pool spares run at a time, the others start as those finish.
+     */
+    ParallelScan parallelScan(int partitions, Consumer<EntityType> consumer);
+
     Optional<EntityType> findById(Serializable id);
 
     List<EntityType> findByIds(Collection<Serializable> ids);
 
+    /** Whether a row with the id exists, without loading the entity. */
+    boolean existsById(Serializable id);
+
+    /** Subset of the given ids that have a row, only the id column is read. */
+    Set<Serializable> findExistingIds(Collection<Serializable> ids);
+
+    long countAll();
+
+    /**
+     * Counts rows whose attributes, by attribute or column name, equal the values; a {@code null} value matches
+     * {@code IS NULL} and a collection matches {@code IN}.
+     */
+    long countBy(Map<String, ?> attributeValues);
+
+    /**
+     * Selects only the given attributes, in that order, into instances of {@code projection} through its matching
+     * constructor (JPA constructor expression), ordered by id; no entities are hydrated.
+     */
+    <P> List<P> projectAll(Class<P> projection, String... attributes);
+
+    /** As {@link #projectAll}, restricted like {@link #countBy}. */
+    <P> List<P> projectBy(Class<P> projection, Map<String, ?> attributeValues, String... attributes);
+
+    KeysetPage<EntityType> findPageAfter(Serializable lastId, int pageSize);
+
+    KeysetPage<EntityType> findPageAfter(PageCursor cursor);
+
     Optional<EntityType> save(EntityType entity);
 
     List<EntityType> saveAll(List<EntityType> entities);
 
+    /**
+     * Conflict columns are given as attribute or column names and need a matching unique constraint. Of entities
+     * sharing a conflict key only the last one is written; explicit ids advance the identity sequence.
+     */
+    int upsertAll(Collection<EntityType> entities, List<String> conflictColumns);
+
+    BulkLoadResult bulkLoad(Iterable<EntityType> entities);
+
+    BulkLoadResult bulkLoad(Iterable<EntityType> entities, CopyFormat format);
+
     boolean delete(EntityType entity);
 
     boolean deleteByIds(Collection<Serializable> entities);
 
+    /** Deletes by id in chunked set-based statements; entity callbacks and cascades do not run. */
     boolean deleteAll(Collection<EntityType> entities);
 
+    /** Single {@code DELETE} of every row, returns the number of rows deleted. */
+    int deleteEverything();
+
+    /** {@code TRUNCATE} of the entity's table: fastest way to empty it, but takes an exclusive lock. */
+    void truncate();
+
     List<EntityType> executeSelectQuery(
             String selectQuery, final Map<String, Object> paramMap, final EntityFieldMapper<EntityType> mapper
     );
 
+    /** The returned stream keeps a session open, so it has to be closed, e.g. with try-with-resources. */
+    Stream<EntityType> streamSelectQuery(
+            String selectQuery, final Map<String, Object> paramMap, final EntityFieldMapper<EntityType> mapper
+    );
+
+    /** Mapper for native rows selecting the given columns, by attribute or column name, in that order. */
+    EntityFieldMapper<EntityType> rowMapper(String... columns);
+
     boolean executeUpdateQuery(final String sqlQuery, final Map<String, ?> paramMap);
+
+    /** Typed, set-based bulk update executed as a single {@code CriteriaUpdate}, see {@link UpdateWhere}. */
+    UpdateWhere<EntityType> updateWhere();
 }
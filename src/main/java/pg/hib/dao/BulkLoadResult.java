@@ -0,0 +1,35 @@
+package pg.hib.dao;
+
+import java.util.concurrent.TimeUnit;
+
+public final class BulkLoadResult {
+
+    private final long rows;
+    private final long elapsedNanos;
+
+    BulkLoadResult(long rows, long elapsedNanos) {
+        this.rows = rows;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    }
+
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : rows * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "BulkLoadResult{" +
+                "rows=" + rows +
+                ", elapsedMillis=" + getElapsedMillis() +
+                ", rowsPerSecond=" + String.format("%.1f", getRowsPerSecond()) +
+                '}';
+    }
+}
@@ -0,0 +1,70 @@
+package pg.hib.dao;
+
+import org.hibernate.metamodel.model.convert.spi.BasicValueConverter;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.type.Type;
+import org.hibernate.type.descriptor.converter.AttributeConverterTypeAdapter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/** Single-column persistent property together with what is needed to turn its value into the JDBC value. */
+final class ColumnMapping {
+
+    private final String propertyName;
+    private final String columnName;
+    private final int propertyIndex;
+    private final int sqlType;
+    private final BasicValueConverter<Object, Object> converter;
+
+    private ColumnMapping(String propertyName, String columnName, int propertyIndex, int sqlType,
+                          BasicValueConverter<Object, Object> converter) {
+        this.propertyName = propertyName;
+        this.columnName = columnName;
+        this.propertyIndex = propertyIndex;
+        this.sqlType = sqlType;
+        this.converter = converter;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static List<ColumnMapping> insertableColumns(AbstractEntityPersister persister) {
+        final String[] propertyNames = persister.getPropertyNames();
+        final Type[] propertyTypes = persister.getPropertyTypes();
+        final boolean[] insertability = persister.getPropertyInsertability();
+        final List<ColumnMapping> columns = new ArrayList<>(propertyNames.length);
+        for (int i = 0; i < propertyNames.length; i++) {
+            final String[] columnNames = persister.getPropertyColumnNames(i);
+            if (!insertability[i] || columnNames.length != 1 || propertyTypes[i].isAssociationType()) {
+                continue;
+            }
+            BasicValueConverter<Object, Object> converter = null;
+            if (propertyTypes[i] instanceof AttributeConverterTypeAdapter) {
+                converter = (BasicValueConverter) ((AttributeConverterTypeAdapter) propertyTypes[i]).getAttributeConverter();
+            }
+            final int sqlType = propertyTypes[i].sqlTypes(persister.getFactory())[0];
+            columns.add(new ColumnMapping(propertyNames[i], columnNames[0], i, sqlType, converter));
+        }
+        return Collections.unmodifiableList(columns);
+    }
+
+    Object relationalValue(Object entity, AbstractEntityPersister persister) {
+        final Object value = persister.getPropertyValue(entity, propertyIndex);
+        if (value == null || converter == null) {
+            return value;
+        }
+        return converter.toRelationalValue(value);
+    }
+
+    String getPropertyName() {
+        return propertyName;
+    }
+
+    String getColumnName() {
+        return columnName;
+    }
+
+    int getSqlType() {
+        return sqlType;
+    }
+}
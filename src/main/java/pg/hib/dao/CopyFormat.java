@@ -0,0 +1,6 @@
+package pg.hib.dao;
+
+public enum CopyFormat {
+    TEXT,
+    BINARY
+}
@@ -2,6 +2,9 @@ package pg.hib.dao;
 
 import org.hibernate.SessionFactory;
 
+import java.io.Serializable;
+import java.util.concurrent.Executor;
+
 public final class DaoFactory {
 
     private DaoFactory() { }
@@ -10,7 +13,34 @@ public final class DaoFactory {
         return new TestBeanRepository(sessionFactory);
     }
 
+    public static TestEntityDao getTestBeanRepository(SessionFactory sessionFactory, RepositorySettings settings) {
+        return new TestBeanRepository(sessionFactory, settings);
+    }
+
     public static CarDao getCarRepository(SessionFactory sessionFactory) {
         return new CarRepository(sessionFactory);
     }
+
+    public static CarDao getCarRepository(SessionFactory sessionFactory, RepositorySettings settings) {
+        return new CarRepository(sessionFactory, settings);
+    }
+
+    public static <EntityType extends Serializable> StatelessBasicCRUD<EntityType> getStatelessRepository(
+            SessionFactory sessionFactory, Class<EntityType> entityClazz
+    ) {
+        return new StatelessRepository<>(sessionFactory, entityClazz, RepositorySettings.defaults());
+    }
+
+    public static <EntityType extends Serializable> StatelessBasicCRUD<EntityType> getStatelessRepository(
+            SessionFactory sessionFactory, Class<EntityType> entityClazz, RepositorySettings settings
+    ) {
+        return new StatelessRepository<>(sessionFactory, entityClazz, settings);
+    }
+
+    /** Runs every call of the repository on the executor, see {@link pg.hib.providers.RepositoryExecutors} for pool-sized ones. */
+    public static <EntityType extends Serializable> AsyncBasicCRUD<EntityType> getAsyncRepository(
+            BasicCRUD<EntityType> repository, Executor executor
+    ) {
+        return new AsyncRepository<>(repository, executor);
+    }
 }
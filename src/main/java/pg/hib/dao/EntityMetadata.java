@@ -0,0 +1,342 @@
+package pg.hib.dao;
+
+import org.hibernate.id.PostInsertIdentifierGenerator;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.SingularAttribute;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+public final class EntityMetadata<EntityType> {
+
+    private final javax.persistence.metamodel.EntityType<EntityType> entityType;
+    private final Class<EntityType> entityClass;
+    private final String entityName;
+    private final SingularAttribute<? super EntityType, ?> idAttribute;
+    private final Class<?> idType;
+    private final String findAllHql;
+    private final String findByIdsHql;
+    private final String countHql;
+    private final String deleteEverythingHql;
+    private final String existingIdsHql;
+    private final String idRangeHql;
+    private final String rangeScanHql;
+    private final String tableName;
+    private final String idColumnName;
+    private final String truncateSql;
+    private final String findByIdArraySql;
+    private final String deleteByIdArraySql;
+    private final AbstractEntityPersister persister;
+    private final List<ColumnMapping> columns;
+    private final boolean idAssignedByInsert;
+    private final int[] copySqlTypes;
+    private final String copyColumnList;
+    private final String syncIdSequenceSql;
+    private final Map<String, String> pageHqlCache = new ConcurrentHashMap<>();
+    private final Map<String, String> upsertSqlCache = new ConcurrentHashMap<>();
+    private final Map<List<String>, EntityFieldMapper<EntityType>> rowMapperCache = new ConcurrentHashMap<>();
+
+    EntityMetadata(javax.persistence.metamodel.EntityType<EntityType> entityType, AbstractEntityPersister persister) {
+        this.entityType = entityType;
+        this.entityClass = entityType.getJavaType();
+        this.entityName = entityType.getName();
+        this.idType = entityType.getIdType().getJavaType();
+        //the metamodel resolves ids declared on a mapped superclass or on a getter as well
+        this.idAttribute = entityType.getId(idType);
+        final String idName = idAttribute.getName();
+        this.findAllHql = String.format("FROM %s t ORDER BY t.%s", entityName, idName);
+        this.findByIdsHql = String.format("FROM %s t WHERE t.%s IN :ids", entityName, idName);
+        this.countHql = String.format("SELECT COUNT(t) FROM %s t", entityName);
+        this.deleteEverythingHql = String.format("DELETE FROM %s", entityName);
+        this.existingIdsHql = String.format("SELECT t.%1$s FROM %2$s t WHERE t.%1$s IN :ids", idName, entityName);
+        this.idRangeHql = String.format("SELECT MIN(t.%1$s), MAX(t.%1$s) FROM %2$s t", idName, entityName);
+        this.rangeScanHql = String.format("FROM %s t WHERE t.%s BETWEEN :lower AND :upper", entityName, idName);
+        this.tableName = persister.getTableName();
+        this.idColumnName = persister.getIdentifierColumnNames()[0];
+        this.truncateSql = String.format("TRUNCATE TABLE %s", tableName);
+        final String arrayType = IdBinding.isPostgresArrayType(idType) ? IdBinding.postgresArrayType(idType) : null;
+        this.findByIdArraySql = arrayType == null ? null : String.format(
+                "SELECT * FROM %s t WHERE t.%s = ANY(CAST(:ids AS %s[]))", tableName, idColumnName, arrayType
+        );
+        this.deleteByIdArraySql = arrayType == null ? null : String.format(
+                "DELETE FROM %s WHERE %s = ANY(CAST(:ids AS %s[]))", tableName, idColumnName, arrayType
+        );
+        this.persister = persister;
+        this.columns = ColumnMapping.insertableColumns(persister);
+        this.idAssignedByInsert = persister.getIdentifierGenerator() instanceof PostInsertIdentifierGenerator;
+
+        final StringBuilder columnList = new StringBuilder();
+        this.copySqlTypes = new int[columns.size() + (idAssignedByInsert ? 0 : 1)];
+        int column = 0;
+        if (!idAssignedByInsert) {
+            columnList.append(idColumnName);
+            copySqlTypes[column++] = persister.getIdentifierType().sqlTypes(persister.getFactory())[0];
+        }
+        for (ColumnMapping mapping : columns) {
+            columnList.append(columnList.length() == 0 ? "" : ", ").append(mapping.getColumnName());
+            copySqlTypes[column++] = mapping.getSqlType();
+        }
+        this.copyColumnList = columnList.toString();
+        //only ever moves the sequence forward, a table without rows leaves it alone
+        this.syncIdSequenceSql = !idAssignedByInsert ? null : String.format(
+                "SELECT setval(s.seq, m.max_id) FROM " +
+                        "(SELECT CAST(pg_get_serial_sequence('%1$s', '%2$s') AS regclass) AS seq) s, " +
+                        "(SELECT MAX(%2$s) AS max_id FROM %1$s) m " +
+                        "WHERE m.max_id > COALESCE(pg_sequence_last_value(s.seq), 0)",
+                tableName, idColumnName
+        );
+    }
+
+    public Class<EntityType> getEntityClass() {
+        return entityClass;
+    }
+
+    public String getEntityName() {
+        return entityName;
+    }
+
+    public SingularAttribute<? super EntityType, ?> getIdAttribute() {
+        return idAttribute;
+    }
+
+    public String getIdName() {
+        return idAttribute.getName();
+    }
+
+    public Class<?> getIdType() {
+        return idType;
+    }
+
+    public String getFindAllHql() {
+        return findAllHql;
+    }
+
+    public String getFindByIdsHql() {
+        return findByIdsHql;
+    }
+
+    public String getDeleteEverythingHql() {
+        return deleteEverythingHql;
+    }
+
+    public String getTruncateSql() {
+        return truncateSql;
+    }
+
+    public String getCountHql() {
+        return countHql;
+    }
+
+    /** Selects only the ids out of {@code :ids} that have a row. */
+    public String getExistingIdsHql() {
+        return existingIdsHql;
+    }
+
+    /** Smallest and largest id of the table, both {@code null} when it is empty. */
+    public String getIdRangeHql() {
+        return idRangeHql;
+    }
+
+    public String getRangeScanHql() {
+        return rangeScanHql;
+    }
+
+    boolean isIntegralId() {
+        return idType == Long.class || idType == Integer.class || idType == Short.class
+                || idType == long.class || idType == int.class || idType == short.class;
+    }
+
+    /** Narrows a range bound back to the id type, only valid for {@link #isIntegralId()} ids. */
+    Serializable toId(long value) {
+        if (idType == Integer.class || idType == int.class) {
+            return (int) value;
+        }
+        if (idType == Short.class || idType == short.class) {
+            return (short) value;
+        }
+        return value;
+    }
+
+    /** HQL of the generic CRUD operations, e.g. to compile them into the query plan cache during warm-up. */
+    public List<String> getGenericHql() {
+        return Arrays.asList(findAllHql, findByIdsHql, getPageHql(null, true), getPageHql(null, false),
+                countHql, existingIdsHql);
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    /** Query cache region for the entity's finders, configured next to the entity region in application.conf. */
+    public String getQueryCacheRegion() {
+        return tableName + "-queries";
+    }
+
+    public String getIdColumnName() {
+        return idColumnName;
+    }
+
+    public String getFindByIdArraySql() {
+        return requireArraySupport(findByIdArraySql);
+    }
+
+    public String getDeleteByIdArraySql() {
+        return requireArraySupport(deleteByIdArraySql);
+    }
+
+    AbstractEntityPersister getPersister() {
+        return persister;
+    }
+
+    /** Insertable single-column properties, without the id. */
+    List<ColumnMapping> getColumns() {
+        return columns;
+    }
+
+    boolean isIdAssignedByInsert() {
+        return idAssignedByInsert;
+    }
+
+    /** Advances the identity sequence past the largest id, only set for {@link #isIdAssignedByInsert()} ids. */
+    String getSyncIdSequenceSql() {
+        return syncIdSequenceSql;
+    }
+
+    /** JDBC types of the COPY columns; the id comes first unless the database assigns it. */
+    int[] getCopySqlTypes() {
+        return copySqlTypes.clone();
+    }
+
+    String getCopySql(PgCopyEncoder encoder) {
+        return String.format("COPY %s (%s) FROM STDIN%s", tableName, copyColumnList, encoder.formatClause());
+    }
+
+    /** Column for an attribute name, the id attribute name or a column name; unknown names are rejected. */
+    public String resolveColumnName(String name) {
+        if (getIdName().equals(name) || idColumnName.equalsIgnoreCase(name)) {
+            return idColumnName;
+        }
+        for (ColumnMapping mapping : columns) {
+            if (mapping.getPropertyName().equals(name) || mapping.getColumnName().equalsIgnoreCase(name)) {
+                return mapping.getColumnName();
+            }
+        }
+        throw new IllegalArgumentException(String.format("%s has no column or attribute named %s.", entityName, name));
+    }
+
+    String resolveAttributeName(String name) {
+        if (getIdName().equals(name) || idColumnName.equalsIgnoreCase(name)) {
+            return getIdName();
+        }
+        for (ColumnMapping mapping : columns) {
+            if (mapping.getPropertyName().equals(name) || mapping.getColumnName().equalsIgnoreCase(name)) {
+                return mapping.getPropertyName();
+            }
+        }
+        throw new IllegalArgumentException(String.format("%s has no column or attribute named %s.", entityName, name));
+    }
+
+    /** Compiled once per list of selected columns, given as attribute or column names. */
+    public EntityFieldMapper<EntityType> getRowMapper(List<String> columns) {
+        return rowMapperCache.computeIfAbsent(columns, key -> RowMapperCompiler.compile(
+                entityClass, key.stream().map(this::resolveAttributeName).collect(Collectors.toList())
+        ));
+    }
+
+    /** Multi-row {@code INSERT ... ON CONFLICT DO UPDATE} for {@code rows} rows of id (optional) and columns. */
+    String getUpsertSql(boolean withId, List<String> conflictColumns, int rows) {
+        final String key = withId + ":" + conflictColumns + ":" + rows;
+        return upsertSqlCache.computeIfAbsent(key, k -> buildUpsertSql(withId, conflictColumns, rows));
+    }
+
+    private String buildUpsertSql(boolean withId, List<String> conflictColumns, int rows) {
+        final StringBuilder columnList = new StringBuilder(withId ? idColumnName : "");
+        final StringBuilder updates = new StringBuilder();
+        for (ColumnMapping mapping : columns) {
+            columnList.append(columnList.length() == 0 ? "" : ", ").append(mapping.getColumnName());
+            if (!conflictColumns.contains(mapping.getColumnName())) {
+                updates.append(updates.length() == 0 ? "" : ", ")
+                        .append(mapping.getColumnName()).append(" = EXCLUDED.").append(mapping.getColumnName());
+            }
+        }
+        final int columnCount = columns.size() + (withId ? 1 : 0);
+        final StringBuilder rowPlaceholders = new StringBuilder("(");
+        for (int i = 0; i < columnCount; i++) {
+            rowPlaceholders.append(i == 0 ? "?" : ", ?");
+        }
+        rowPlaceholders.append(')');
+
+        final StringBuilder sql = new StringBuilder(64 + rows * rowPlaceholders.length())
+                .append("INSERT INTO ").append(tableName).append(" (").append(columnList).append(") VALUES ");
+        for (int i = 0; i < rows; i++) {
+            sql.append(i == 0 ? "" : ", ").append(rowPlaceholders);
+        }
+        sql.append(" ON CONFLICT (").append(String.join(", ", conflictColumns)).append(')');
+        sql.append(updates.length() == 0 ? " DO NOTHING" : " DO UPDATE SET " + updates);
+        return sql.toString();
+    }
+
+    private String requireArraySupport(String sql) {
+        if (sql == null) {
+            //rethrows with the descriptive message
+            IdBinding.postgresArrayType(idType);
+        }
+        return sql;
+    }
+
+    public Attribute<? super EntityType, ?> getAttribute(String attributeName) {
+        return entityType.getAttribute(attributeName);
+    }
+
+    /** Keyset page query selecting the entity together with its sort value; {@code null} sorts by id only. */
+    public String getPageHql(String sortAttribute, boolean firstPage) {
+        final String sortName = sortAttribute == null ? getIdName() : getAttribute(sortAttribute).getName();
+        final String key = sortName + (sortAttribute == null ? "" : ":sorted") + (firstPage ? ":first" : "");
+        return pageHqlCache.computeIfAbsent(key, k -> buildPageHql(sortName, sortAttribute != null, firstPage));
+    }
+
+    /**
+     * Keyset page over the rows whose sort value is {@code NULL}; they come last, ordered by id. Without
+     * {@code afterId} it starts with the first of them, as the page following the last non-null sort value.
+     */
+    String getNullSortPageHql(String sortAttribute, boolean afterId) {
+        final String sortName = getAttribute(sortAttribute).getName();
+        return pageHqlCache.computeIfAbsent(sortName + ":nulls" + (afterId ? "" : ":first"), k -> {
+            final StringBuilder hql = new StringBuilder(String.format("SELECT t, t.%1$s FROM %2$s t WHERE t.%1$s IS NULL",
+                    sortName, entityName));
+            if (afterId) {
+                hql.append(String.format(" AND t.%s > :lastId", getIdName()));
+            }
+            return hql.append(String.format(" ORDER BY t.%s", getIdName())).toString();
+        });
+    }
+
+    private String buildPageHql(String sortName, boolean sorted, boolean firstPage) {
+        final String idName = getIdName();
+        final StringBuilder hql = new StringBuilder(String.format("SELECT t, t.%s FROM %s t", sortName, entityName));
+        if (!firstPage) {
+            //the row-value comparison can use a composite (sort, id) index; it never matches a NULL sort value
+            hql.append(sorted
+                    ? String.format(" WHERE (t.%s, t.%s) > (:lastSort, :lastId)", sortName, idName)
+                    : String.format(" WHERE t.%s > :lastId", idName));
+        }
+        hql.append(sorted
+                ? String.format(" ORDER BY t.%s NULLS LAST, t.%s", sortName, idName)
+                : String.format(" ORDER BY t.%s", idName));
+        return hql.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "EntityMetadata{" +
+                "entityName='" + entityName + '\'' +
+                ", idName='" + getIdName() + '\'' +
+                ", idType=" + idType.getSimpleName() +
+                '}';
+    }
+}
@@ -0,0 +1,59 @@
+package pg.hib.dao;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.metamodel.spi.MetamodelImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+public final class EntityMetadataRegistry {
+
+    private static final Map<SessionFactory, EntityMetadataRegistry> REGISTRIES =
+            Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final Map<Class<?>, EntityMetadata<?>> metadataByClass;
+
+    private EntityMetadataRegistry(SessionFactory sessionFactory) {
+        final MetamodelImplementor metamodel = sessionFactory.unwrap(SessionFactoryImplementor.class).getMetamodel();
+        Map<Class<?>, EntityMetadata<?>> metadata = new HashMap<>();
+        for (javax.persistence.metamodel.EntityType<?> entityType : metamodel.getEntities()) {
+            final AbstractEntityPersister persister =
+                    (AbstractEntityPersister) metamodel.entityPersister(entityType.getJavaType());
+            metadata.put(entityType.getJavaType(), metadataOf(entityType, persister));
+        }
+        this.metadataByClass = Collections.unmodifiableMap(metadata);
+    }
+
+    private static <EntityType> EntityMetadata<EntityType> metadataOf(
+            javax.persistence.metamodel.EntityType<EntityType> entityType, AbstractEntityPersister persister
+    ) {
+        return new EntityMetadata<>(entityType, persister);
+    }
+
+    /** Builds the registry eagerly, meant to be called right after the session factory is created. */
+    public static EntityMetadataRegistry build(SessionFactory sessionFactory) {
+        return forSessionFactory(sessionFactory);
+    }
+
+    public static EntityMetadataRegistry forSessionFactory(SessionFactory sessionFactory) {
+        return REGISTRIES.computeIfAbsent(sessionFactory, EntityMetadataRegistry::new);
+    }
+
+    public Collection<EntityMetadata<?>> getAll() {
+        return metadataByClass.values();
+    }
+
+    @SuppressWarnings("unchecked")
+    public <EntityType> EntityMetadata<EntityType> get(Class<EntityType> entityClass) {
+        EntityMetadata<?> metadata = metadataByClass.get(entityClass);
+        if (metadata == null) {
+            throw new IllegalArgumentException(String.format("%s is not a mapped entity.", entityClass.getName()));
+        }
+        return (EntityMetadata<EntityType>) metadata;
+    }
+}
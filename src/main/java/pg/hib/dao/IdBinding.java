@@ -0,0 +1,92 @@
+package pg.hib.dao;
+
+import java.io.Serializable;
+import java.util.*;
+
+final class IdBinding {
+
+    private static final Map<Class<?>, String> POSTGRES_ARRAY_TYPES = new HashMap<>();
+
+    static {
+        POSTGRES_ARRAY_TYPES.put(Long.class, "bigint");
+        POSTGRES_ARRAY_TYPES.put(long.class, "bigint");
+        POSTGRES_ARRAY_TYPES.put(Integer.class, "integer");
+        POSTGRES_ARRAY_TYPES.put(int.class, "integer");
+        POSTGRES_ARRAY_TYPES.put(Short.class, "smallint");
+        POSTGRES_ARRAY_TYPES.put(short.class, "smallint");
+        POSTGRES_ARRAY_TYPES.put(String.class, "text");
+        POSTGRES_ARRAY_TYPES.put(UUID.class, "uuid");
+    }
+
+    private IdBinding() { }
+
+    /**
+     * Splits distinct ids into chunks of at most {@code maxChunkSize}. Every chunk is padded with its last id up to the
+     * next power of two, so a list of any length maps onto a few statement shapes.
+     */
+    static List<List<Serializable>> paddedChunks(Collection<? extends Serializable> ids, int maxChunkSize) {
+        final List<Serializable> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        final List<List<Serializable>> chunks = new ArrayList<>(distinctIds.size() / maxChunkSize + 1);
+        for (int from = 0; from < distinctIds.size(); from += maxChunkSize) {
+            final List<Serializable> chunk = distinctIds.subList(from, Math.min(from + maxChunkSize, distinctIds.size()));
+            final int paddedSize = Math.min(nextPowerOfTwo(chunk.size()), maxChunkSize);
+            final List<Serializable> padded = new ArrayList<>(paddedSize);
+            padded.addAll(chunk);
+            final Serializable last = chunk.get(chunk.size() - 1);
+            while (padded.size() < paddedSize) {
+                padded.add(last);
+            }
+            chunks.add(padded);
+        }
+        return chunks;
+    }
+
+    static int distinctCount(Collection<? extends Serializable> ids) {
+        return new HashSet<>(ids).size();
+    }
+
+    static boolean isPostgresArrayType(Class<?> idType) {
+        return POSTGRES_ARRAY_TYPES.containsKey(idType);
+    }
+
+    static String postgresArrayType(Class<?> idType) {
+        final String type = POSTGRES_ARRAY_TYPES.get(idType);
+        if (type == null) {
+            throw new IllegalArgumentException(
+                    String.format("Id type %s can not be bound as PostgreSQL array.", idType.getName())
+            );
+        }
+        return type;
+    }
+
+    /** Renders ids as a PostgreSQL array literal, e.g. {@code {1,2,3}}, bound as one text parameter. */
+    static String postgresArrayLiteral(Collection<? extends Serializable> ids) {
+        final StringBuilder literal = new StringBuilder(ids.size() * 8 + 2).append('{');
+        boolean first = true;
+        for (Serializable id : ids) {
+            if (!first) {
+                literal.append(',');
+            }
+            first = false;
+            if (id instanceof Number) {
+                literal.append(id);
+            } else {
+                literal.append('"');
+                final String value = String.valueOf(id);
+                for (int i = 0; i < value.length(); i++) {
+                    final char c = value.charAt(i);
+                    if (c == '"' || c == '\\') {
+                        literal.append('\\');
+                    }
+                    literal.append(c);
+                }
+                literal.append('"');
+            }
+        }
+        return literal.append('}').toString();
+    }
+
+    private static int nextPowerOfTwo(int value) {
+        return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+    }
+}
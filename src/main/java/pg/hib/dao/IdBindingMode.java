@@ -0,0 +1,8 @@
+package pg.hib.dao;
+
+public enum IdBindingMode {
+    /** {@code IN (:ids)} split into chunks padded to a power of two, so only a handful of plan shapes exist. */
+    PADDED_IN_LIST,
+    /** {@code = ANY(CAST(:ids AS type[]))} with one bind parameter regardless of how many ids are passed. */
+    POSTGRES_ARRAY
+}
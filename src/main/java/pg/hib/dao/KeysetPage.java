@@ -0,0 +1,40 @@
+package pg.hib.dao;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+public final class KeysetPage<EntityType> {
+
+    private final List<EntityType> content;
+    private final PageCursor nextCursor;
+    private final boolean hasNext;
+
+    KeysetPage(List<EntityType> content, PageCursor nextCursor, boolean hasNext) {
+        this.content = Collections.unmodifiableList(content);
+        this.nextCursor = nextCursor;
+        this.hasNext = hasNext;
+    }
+
+    public List<EntityType> getContent() {
+        return content;
+    }
+
+    public boolean hasNext() {
+        return hasNext;
+    }
+
+    /** Cursor to pass back to {@code findPageAfter} for the following page, empty when this page was the last one. */
+    public Optional<PageCursor> next() {
+        return hasNext ? Optional.of(nextCursor) : Optional.empty();
+    }
+
+    @Override
+    public String toString() {
+        return "KeysetPage{" +
+                "size=" + content.size() +
+                ", nextCursor=" + nextCursor +
+                ", hasNext=" + hasNext +
+                '}';
+    }
+}
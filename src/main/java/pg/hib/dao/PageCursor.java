@@ -0,0 +1,72 @@
+package pg.hib.dao;
+
+import java.io.Serializable;
+
+public final class PageCursor implements Serializable {
+
+    private final String sortAttribute;
+    private final Object lastSortValue;
+    private final Serializable lastId;
+    private final int pageSize;
+
+    private PageCursor(String sortAttribute, Object lastSortValue, Serializable lastId, int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size has to be greater than 0.");
+        }
+        this.sortAttribute = sortAttribute;
+        this.lastSortValue = lastSortValue;
+        this.lastId = lastId;
+        this.pageSize = pageSize;
+    }
+
+    public static PageCursor first(int pageSize) {
+        return new PageCursor(null, null, null, pageSize);
+    }
+
+    /** Pages by the attribute, then by id; rows whose attribute is {@code NULL} come last, ordered by id. */
+    public static PageCursor firstSortedBy(String sortAttribute, int pageSize) {
+        return new PageCursor(sortAttribute, null, null, pageSize);
+    }
+
+    public static PageCursor after(Serializable lastId, int pageSize) {
+        return new PageCursor(null, null, lastId, pageSize);
+    }
+
+    PageCursor next(Object lastSortValue, Serializable lastId) {
+        return new PageCursor(sortAttribute, lastSortValue, lastId, pageSize);
+    }
+
+    public String getSortAttribute() {
+        return sortAttribute;
+    }
+
+    public Object getLastSortValue() {
+        return lastSortValue;
+    }
+
+    public Serializable getLastId() {
+        return lastId;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public boolean isSorted() {
+        return sortAttribute != null;
+    }
+
+    public boolean isFirstPage() {
+        return lastId == null;
+    }
+
+    @Override
+    public String toString() {
+        return "PageCursor{" +
+                "sortAttribute='" + sortAttribute + '\'' +
+                ", lastSortValue=" + lastSortValue +
+                ", lastId=" + lastId +
+                ", pageSize=" + pageSize +
+                '}';
+    }
+}
@@ -0,0 +1,135 @@
+package pg.hib.dao;
+
+import org.hibernate.HibernateException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/** Handle of a running {@code parallelScan}, progress can be polled while the partitions are being read. */
+public final class ParallelScan {
+
+    private final List<Partition> partitions;
+    private final CompletableFuture<Long> completion;
+    private final AtomicBoolean cancelled;
+
+    ParallelScan(List<Partition> partitions, CompletableFuture<Long> completion, AtomicBoolean cancelled) {
+        this.partitions = Collections.unmodifiableList(partitions);
+        this.completion = completion;
+        this.cancelled = cancelled;
+    }
+
+    /** At most {@code partitions} contiguous ranges of nearly equal width covering {@code min..max}. */
+    static List<Partition> split(long min, long max, int partitions) {
+        final List<Partition> ranges = new ArrayList<>(partitions);
+        //unsigned, so that neither the span of ids near the long limits nor the bounds can overflow
+        final long extent = Long.divideUnsigned(max - min, partitions);
+        long lower = min;
+        while (true) {
+            final long upper = Long.compareUnsigned(max - lower, extent) <= 0 ? max : lower + extent;
+            ranges.add(new Partition(ranges.size(), lower, upper));
+            if (upper == max) {
+                return ranges;
+            }
+            lower = upper + 1;
+        }
+    }
+
+    public List<Partition> getPartitions() {
+        return partitions;
+    }
+
+    public long getRowsScanned() {
+        return partitions.stream().mapToLong(Partition::getRowsScanned).sum();
+    }
+
+    public boolean isDone() {
+        return completion.isDone();
+    }
+
+    /** Stops every partition after the row it is currently handing to the consumer. */
+    public void cancel() {
+        cancelled.set(true);
+    }
+
+    /** Completes with the total number of rows once every partition has finished. */
+    public CompletableFuture<Long> completion() {
+        return completion;
+    }
+
+    /** Waits for all partitions and returns the total number of rows scanned. */
+    public long join() {
+        try {
+            return completion.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof HibernateException) {
+                throw (HibernateException) ex.getCause();
+            }
+            throw new HibernateException(ex.getCause());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ParallelScan{" +
+                "rows=" + getRowsScanned() +
+                ", done=" + isDone() +
+                ", partitions=" + partitions +
+                '}';
+    }
+
+    public static final class Partition {
+
+        private final int index;
+        private final long lowerId;
+        private final long upperId;
+        private final LongAdder rowsScanned = new LongAdder();
+        private volatile boolean finished;
+
+        Partition(int index, long lowerId, long upperId) {
+            this.index = index;
+            this.lowerId = lowerId;
+            this.upperId = upperId;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        /** Inclusive. */
+        public long getLowerId() {
+            return lowerId;
+        }
+
+        /** Inclusive. */
+        public long getUpperId() {
+            return upperId;
+        }
+
+        public long getRowsScanned() {
+            return rowsScanned.sum();
+        }
+
+        public boolean isFinished() {
+            return finished;
+        }
+
+        void rowScanned() {
+            rowsScanned.increment();
+        }
+
+        void finish() {
+            finished = true;
+        }
+
+        @Override
+        public String toString() {
+            return "{#" + index + " [" + lowerId + ", " + upperId + "] rows=" + getRowsScanned() +
+                    (finished ? ", finished" : "") + '}';
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package pg.hib.dao;
+
+import org.hibernate.HibernateException;
+import org.postgresql.copy.CopyIn;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/** Encodes rows for {@code COPY ... FROM STDIN} in PostgreSQL text or binary format. */
+abstract class PgCopyEncoder {
+
+    static PgCopyEncoder forFormat(CopyFormat format) {
+        return format == CopyFormat.BINARY ? new Binary() : new Text();
+    }
+
+    abstract String formatClause();
+
+    abstract void writeHeader(DataOutputStream out) throws IOException;
+
+    abstract void writeRow(DataOutputStream out, Object[] values, int[] sqlTypes) throws IOException;
+
+    abstract void writeTrailer(DataOutputStream out) throws IOException;
+
+    /** Reusable buffer handed to the driver without copying the backing array. */
+    static final class CopyBuffer extends ByteArrayOutputStream {
+
+        CopyBuffer(int size) {
+            super(size);
+        }
+
+        void flushTo(CopyIn copyIn) throws SQLException {
+            if (count > 0) {
+                copyIn.writeToCopy(buf, 0, count);
+                reset();
+            }
+        }
+    }
+
+    private static final class Text extends PgCopyEncoder {
+
+        @Override
+        String formatClause() {
+            return "";
+        }
+
+        @Override
+        void writeHeader(DataOutputStream out) { }
+
+        @Override
+        void writeRow(DataOutputStream out, Object[] values, int[] sqlTypes) throws IOException {
+            final StringBuilder row = new StringBuilder(64);
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    row.append('\t');
+                }
+                appendValue(row, values[i]);
+            }
+            row.append('\n');
+            out.write(row.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        private void appendValue(StringBuilder row, Object value) {
+            if (value == null) {
+                row.append("\\N");
+            } else if (value instanceof Boolean) {
+                row.append((Boolean) value ? 't' : 'f');
+            } else if (value instanceof Number || value instanceof Timestamp || value instanceof LocalDateTime) {
+                row.append(value);
+            } else {
+                final String text = value.toString();
+                for (int i = 0; i < text.length(); i++) {
+                    final char c = text.charAt(i);
+                    switch (c) {
+                        case '\\': row.append("\\\\"); break;
+                        case '\t': row.append("\\t"); break;
+                        case '\n': row.append("\\n"); break;
+                        case '\r': row.append("\\r"); break;
+                        default: row.append(c);
+                    }
+                }
+            }
+        }
+
+        @Override
+        void writeTrailer(DataOutputStream out) { }
+    }
+
+    private static final class Binary extends PgCopyEncoder {
+
+        private static final byte[] SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0};
+        private static final LocalDateTime POSTGRES_EPOCH = LocalDateTime.of(2000, 1, 1, 0, 0);
+
+        @Override
+        String formatClause() {
+            return " (FORMAT binary)";
+        }
+
+        @Override
+        void writeHeader(DataOutputStream out) throws IOException {
+            out.write(SIGNATURE);
+            out.writeInt(0);
+            out.writeInt(0);
+        }
+
+        @Override
+        void writeRow(DataOutputStream out, Object[] values, int[] sqlTypes) throws IOException {
+            out.writeShort(values.length);
+            for (int i = 0; i < values.length; i++) {
+                writeValue(out, values[i], sqlTypes[i]);
+            }
+        }
+
+        private void writeValue(DataOutputStream out, Object value, int sqlType) throws IOException {
+            if (value == null) {
+                out.writeInt(-1);
+                return;
+            }
+            switch (sqlType) {
+                case Types.BOOLEAN:
+                case Types.BIT:
+                    out.writeInt(1);
+                    out.writeByte((Boolean) value ? 1 : 0);
+                    break;
+                case Types.SMALLINT:
+                    out.writeInt(2);
+                    out.writeShort(((Number) value).shortValue());
+                    break;
+                case Types.INTEGER:
+                    out.writeInt(4);
+                    out.writeInt(((Number) value).intValue());
+                    break;
+                case Types.BIGINT:
+                    out.writeInt(8);
+                    out.writeLong(((Number) value).longValue());
+                    break;
+                case Types.REAL:
+                    out.writeInt(4);
+                    out.writeFloat(((Number) value).floatValue());
+                    break;
+                case Types.DOUBLE:
+                case Types.FLOAT:
+                    out.writeInt(8);
+                    out.writeDouble(((Number) value).doubleValue());
+                    break;
+                case Types.CHAR:
+                case Types.VARCHAR:
+                case Types.LONGVARCHAR:
+                case Types.NVARCHAR:
+                    final byte[] text = value.toString().getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(text.length);
+                    out.write(text);
+                    break;
+                case Types.TIMESTAMP:
+                    final LocalDateTime dateTime = value instanceof Timestamp
+                            ? ((Timestamp) value).toLocalDateTime()
+                            : (LocalDateTime) value;
+                    out.writeInt(8);
+                    out.writeLong(ChronoUnit.MICROS.between(POSTGRES_EPOCH, dateTime));
+                    break;
+                case Types.DATE:
+                    final LocalDate date = value instanceof java.sql.Date
+                            ? ((java.sql.Date) value).toLocalDate()
+                            : (LocalDate) value;
+                    out.writeInt(4);
+                    out.writeInt((int) ChronoUnit.DAYS.between(POSTGRES_EPOCH.toLocalDate(), date));
+                    break;
+                default:
+                    throw new HibernateException(String.format(
+                            "SQL type %d is not supported by binary COPY, use CopyFormat.TEXT instead.", sqlType
+                    ));
+            }
+        }
+
+        @Override
+        void writeTrailer(DataOutputStream out) throws IOException {
+            out.writeShort(-1);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package pg.hib.dao;
+
+public final class RepositorySettings {
+
+    public static final int DEFAULT_BATCH_SIZE = 20;
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+    public static final int DEFAULT_IN_CLAUSE_CHUNK_SIZE = 512;
+
+    private final int batchSize;
+    private final int fetchSize;
+    private final int inClauseChunkSize;
+    private final IdBindingMode idBindingMode;
+
+    private RepositorySettings(Builder builder) {
+        this.batchSize = builder.batchSize;
+        this.fetchSize = builder.fetchSize;
+        this.inClauseChunkSize = builder.inClauseChunkSize;
+        this.idBindingMode = builder.idBindingMode;
+    }
+
+    public static RepositorySettings defaults() {
+        return builder().build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    public int getInClauseChunkSize() {
+        return inClauseChunkSize;
+    }
+
+    public IdBindingMode getIdBindingMode() {
+        return idBindingMode;
+    }
+
+    public static final class Builder {
+        private int batchSize = DEFAULT_BATCH_SIZE;
+        private int fetchSize = DEFAULT_FETCH_SIZE;
+        private int inClauseChunkSize = DEFAULT_IN_CLAUSE_CHUNK_SIZE;
+        private IdBindingMode idBindingMode = IdBindingMode.PADDED_IN_LIST;
+
+        private Builder() { }
+
+        public Builder batchSize(int batchSize) {
+            this.batchSize = requirePositive(batchSize, "Batch size");
+            return this;
+        }
+
+        public Builder fetchSize(int fetchSize) {
+            this.fetchSize = requirePositive(fetchSize, "Fetch size");
+            return this;
+        }
+
+        public Builder inClauseChunkSize(int inClauseChunkSize) {
+            this.inClauseChunkSize = requirePositive(inClauseChunkSize, "IN clause chunk size");
+            return this;
+        }
+
+        public Builder idBindingMode(IdBindingMode idBindingMode) {
+            this.idBindingMode = idBindingMode;
+            return this;
+        }
+
+        public RepositorySettings build() {
+            return new RepositorySettings(this);
+        }
+
+        private static int requirePositive(int value, String name) {
+            if (value <= 0) {
+                throw new IllegalArgumentException(String.format("%s has to be greater than 0.", name));
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package pg.hib.dao;
+
+import org.hibernate.HibernateException;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Convert;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Builds {@link EntityFieldMapper}s for native query rows out of method handles, so reflection happens once per column
+ * list instead of once per row. Columns are bound to the all-fields constructor when they are listed in declaration
+ * order, to field setters otherwise.
+ */
+public final class RowMapperCompiler {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodType ROW_TYPE = MethodType.methodType(Object.class, Object[].class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private RowMapperCompiler() { }
+
+    /** Attributes are given in the order of the selected columns. */
+    public static <EntityType> EntityFieldMapper<EntityType> compile(Class<EntityType> entityClass, List<String> attributes) {
+        final Field[] fields = new Field[attributes.size()];
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = findField(entityClass, attributes.get(i));
+        }
+        try {
+            final MethodHandle constructor = constructorMapper(entityClass, fields);
+            return constructor != null ? rowMapper(entityClass, constructor) : setterMapper(entityClass, fields);
+        } catch (ReflectiveOperationException ex) {
+            throw new HibernateException(String.format("Row mapper for %s%s could not be built.",
+                    entityClass.getSimpleName(), attributes), ex);
+        }
+    }
+
+    private static <EntityType> EntityFieldMapper<EntityType> rowMapper(Class<EntityType> entityClass, MethodHandle row) {
+        return fields -> {
+            try {
+                return entityClass.cast((Object) row.invokeExact(fields));
+            } catch (RuntimeException ex) {
+                throw ex;
+            } catch (Throwable ex) {
+                throw new HibernateException(ex);
+            }
+        };
+    }
+
+    /** {@code (Object[]) -> entity} through the constructor taking every field, {@code null} when it does not apply. */
+    private static MethodHandle constructorMapper(Class<?> entityClass, Field[] fields) throws IllegalAccessException {
+        final List<Field> declared = persistentFields(entityClass);
+        if (!declared.equals(Arrays.asList(fields))) {
+            //parameter names are not available, so only the declaration order tells same-typed slots apart
+            return null;
+        }
+        final Class<?>[] types = declared.stream().map(Field::getType).toArray(Class<?>[]::new);
+        final Constructor<?> constructor;
+        try {
+            constructor = entityClass.getConstructor(types);
+        } catch (NoSuchMethodException ex) {
+            return null;
+        }
+        MethodHandle handle = LOOKUP.unreflectConstructor(constructor);
+        final MethodHandle[] converters = new MethodHandle[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            converters[i] = converterFor(fields[i]);
+        }
+        handle = MethodHandles.filterArguments(handle, 0, converters);
+        return handle.asSpreader(Object[].class, fields.length).asType(ROW_TYPE);
+    }
+
+    private static <EntityType> EntityFieldMapper<EntityType> setterMapper(Class<EntityType> entityClass, Field[] fields)
+            throws ReflectiveOperationException {
+        final Constructor<EntityType> noArgs = entityClass.getDeclaredConstructor();
+        noArgs.setAccessible(true);
+        final MethodHandle instantiate = LOOKUP.unreflectConstructor(noArgs).asType(MethodType.methodType(Object.class));
+        final MethodHandle[] setters = new MethodHandle[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            fields[i].setAccessible(true);
+            setters[i] = MethodHandles.filterArguments(LOOKUP.unreflectSetter(fields[i]), 1, converterFor(fields[i]))
+                    .asType(SETTER_TYPE);
+        }
+        return row -> {
+            try {
+                final Object entity = (Object) instantiate.invokeExact();
+                for (int i = 0; i < setters.length; i++) {
+                    setters[i].invokeExact(entity, row[i]);
+                }
+                return entityClass.cast(entity);
+            } catch (RuntimeException ex) {
+                throw ex;
+            } catch (Throwable ex) {
+                throw new HibernateException(ex);
+            }
+        };
+    }
+
+    /** {@code (Object) -> field type}, converting the JDBC value the driver returned for the column. */
+    private static MethodHandle converterFor(Field field) throws IllegalAccessException {
+        final Class<?> type = field.getType();
+        final MethodType target = MethodType.methodType(type, Object.class);
+        final Convert convert = field.getAnnotation(Convert.class);
+        if (convert != null && convert.converter() != void.class) {
+            final AttributeConverter<?, ?> converter;
+            try {
+                converter = (AttributeConverter<?, ?>) convert.converter().getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException ex) {
+                throw new HibernateException("Converter " + convert.converter().getName() + " could not be created.", ex);
+            }
+            final MethodHandle converted = findConversion("converted",
+                    MethodType.methodType(Object.class, AttributeConverter.class, MethodHandle.class, Object.class));
+            return requireValueIfPrimitive(field,
+                    MethodHandles.insertArguments(converted, 0, converter, plainConverterFor(type))).asType(target);
+        }
+        return requireValueIfPrimitive(field, plainConverterFor(type)).asType(target);
+    }
+
+    /** A NULL column would otherwise fail unboxing with a bare NullPointerException that names nothing. */
+    private static MethodHandle requireValueIfPrimitive(Field field, MethodHandle conversion) throws IllegalAccessException {
+        if (!field.getType().isPrimitive()) {
+            return conversion;
+        }
+        final MethodHandle requireValue = MethodHandles.insertArguments(
+                findConversion("requireValue", MethodType.methodType(Object.class, Field.class, Object.class)), 0, field
+        );
+        return MethodHandles.filterReturnValue(
+                conversion.asType(conversion.type().changeReturnType(Object.class)), requireValue
+        );
+    }
+
+    private static MethodHandle plainConverterFor(Class<?> type) throws IllegalAccessException {
+        final Class<?> boxed = type.isPrimitive() ? MethodType.methodType(type).wrap().returnType() : type;
+        if (boxed == Long.class) {
+            return findConversion("toLong", MethodType.methodType(Long.class, Object.class));
+        } else if (boxed == Integer.class) {
+            return findConversion("toInteger", MethodType.methodType(Integer.class, Object.class));
+        } else if (boxed == Short.class) {
+            return findConversion("toShort", MethodType.methodType(Short.class, Object.class));
+        } else if (boxed == Double.class) {
+            return findConversion("toDouble", MethodType.methodType(Double.class, Object.class));
+        } else if (boxed == Boolean.class) {
+            return findConversion("toBoolean", MethodType.methodType(Boolean.class, Object.class));
+        } else if (boxed == LocalDateTime.class) {
+            return findConversion("toLocalDateTime", MethodType.methodType(LocalDateTime.class, Object.class));
+        } else if (boxed == LocalDate.class) {
+            return findConversion("toLocalDate", MethodType.methodType(LocalDate.class, Object.class));
+        }
+        return MethodHandles.identity(Object.class);
+    }
+
+    private static MethodHandle findConversion(String name, MethodType type) throws IllegalAccessException {
+        try {
+            return LOOKUP.findStatic(RowMapperCompiler.class, name, type);
+        } catch (NoSuchMethodException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static Field findField(Class<?> entityClass, String attribute) {
+        for (Class<?> type = entityClass; type != null && type != Object.class; type = type.getSuperclass()) {
+            try {
+                return type.getDeclaredField(attribute);
+            } catch (NoSuchFieldException ex) {
+                //declared further up
+            }
+        }
+        throw new IllegalArgumentException(String.format("%s has no attribute named %s.", entityClass.getSimpleName(), attribute));
+    }
+
+    private static List<Field> persistentFields(Class<?> entityClass) {
+        final List<Field> fields = new ArrayList<>();
+        for (Field field : entityClass.getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers()) && !Modifier.isTransient(field.getModifiers())) {
+                fields.add(field);
+            }
+        }
+        return fields;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object converted(AttributeConverter converter, MethodHandle fallback, Object value) throws Throwable {
+        if (value instanceof String) {
+            return converter.convertToEntityAttribute(value);
+        }
+        //the column already has the attribute's type, e.g. a timestamp read for a converted LocalDateTime
+        return (Object) fallback.invoke(value);
+    }
+
+    private static Object requireValue(Field field, Object value) {
+        if (value == null) {
+            throw new HibernateException(String.format("Column %s of %s is NULL, but the field is a primitive %s.",
+                    field.getName(), field.getDeclaringClass().getSimpleName(), field.getType()));
+        }
+        return value;
+    }
+
+    private static Long toLong(Object value) {
+        if (value == null || value instanceof Long) {
+            return (Long) value;
+        }
+        return ((Number) value).longValue();
+    }
+
+    private static Integer toInteger(Object value) {
+        if (value == null || value instanceof Integer) {
+            return (Integer) value;
+        }
+        return ((Number) value).intValue();
+    }
+
+    private static Short toShort(Object value) {
+        if (value == null || value instanceof Short) {
+            return (Short) value;
+        }
+        return ((Number) value).shortValue();
+    }
+
+    private static Double toDouble(Object value) {
+        if (value == null || value instanceof Double) {
+            return (Double) value;
+        }
+        return ((Number) value).doubleValue();
+    }
+
+    private static Boolean toBoolean(Object value) {
+        if (value == null || value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).intValue() != 0;
+        }
+        return "t".equals(value) || "true".equalsIgnoreCase(value.toString());
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        if (value == null || value instanceof LocalDateTime) {
+            return (LocalDateTime) value;
+        }
+        if (value instanceof Timestamp) {
+            return ((Timestamp) value).toLocalDateTime();
+        }
+        return LocalDateTime.parse(value.toString());
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        if (value == null || value instanceof LocalDate) {
+            return (LocalDate) value;
+        }
+        if (value instanceof java.sql.Date) {
+            return ((java.sql.Date) value).toLocalDate();
+        }
+        return LocalDate.parse(value.toString());
+    }
+}
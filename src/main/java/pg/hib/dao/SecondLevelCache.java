@@ -0,0 +1,39 @@
+package pg.hib.dao;
+
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+
+/** Invalidation for writes Hibernate does not see, such as plain JDBC, COPY and stateless sessions. */
+final class SecondLevelCache {
+
+    private SecondLevelCache() { }
+
+    /**
+     * Evicts once the running transaction has committed, also when it belongs to a unit of work. Evicting earlier
+     * lets a concurrent reader cache the old rows again before the write becomes visible.
+     */
+    static void evictOnCommit(Transaction transaction, SessionFactory sessionFactory, Class<?> entityClass) {
+        transaction.registerSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() { }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == Status.STATUS_COMMITTED) {
+                    evict(sessionFactory, entityClass);
+                }
+            }
+        });
+    }
+
+    static void evict(SessionFactory sessionFactory, Class<?> entityClass) {
+        final Cache cache = sessionFactory.getCache();
+        cache.evictEntityData(entityClass);
+        //cached query results may reference the rows, the regions are small enough to drop entirely
+        cache.evictQueryRegions();
+    }
+}
@@ -0,0 +1,15 @@
+package pg.hib.dao;
+
+import java.io.Serializable;
+import java.util.function.Consumer;
+
+/** Bulk operations on a StatelessSession: no first-level cache, no dirty checking, no cascades. */
+public interface StatelessBasicCRUD<EntityType extends Serializable> {
+    long insertAll(Iterable<EntityType> entities);
+
+    long updateAll(Iterable<EntityType> entities);
+
+    long deleteAll(Iterable<EntityType> entities);
+
+    long scan(Consumer<EntityType> consumer);
+}
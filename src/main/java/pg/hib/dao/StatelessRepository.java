@@ -0,0 +1,118 @@
+package pg.hib.dao;
+
+import org.hibernate.HibernateException;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pg.hib.providers.OperationMetrics;
+import pg.hib.providers.OperationTimer;
+import pg.hib.providers.TemplateProvider;
+
+import java.io.Serializable;
+import java.util.function.Consumer;
+
+class StatelessRepository<EntityType extends Serializable> implements StatelessBasicCRUD<EntityType> {
+
+    private final SessionFactory sessionFactory;
+    private final Class<EntityType> entityClazz;
+    private final EntityMetadata<EntityType> metadata;
+    private final int fetchSize;
+    private final String repositoryName;
+    private final Logger logger;
+
+    StatelessRepository(SessionFactory sessionFactory, Class<EntityType> entityClazz, RepositorySettings settings) {
+        this.sessionFactory = sessionFactory;
+        this.entityClazz = entityClazz;
+        this.metadata = EntityMetadataRegistry.forSessionFactory(sessionFactory).get(entityClazz);
+        this.fetchSize = settings.getFetchSize();
+        this.repositoryName = "Stateless" + entityClazz.getSimpleName();
+        this.logger = LoggerFactory.getLogger(getClass());
+    }
+
+    @Override
+    public long insertAll(Iterable<EntityType> entities) {
+        try (OperationTimer timer = OperationMetrics.start(repositoryName, "insertAll");
+             StatelessSession session = sessionFactory.openStatelessSession()) {
+            return TemplateProvider.statelessTemplate(session, () -> {
+                //stateless sessions bypass the second-level cache
+                SecondLevelCache.evictOnCommit(session.getTransaction(), sessionFactory, entityClazz);
+                long inserted = 0;
+                for (EntityType entity : entities) {
+                    session.insert(entity);
+                    inserted++;
+                }
+                return inserted;
+            });
+        } catch (Exception ex) {
+            logger.error("Something went wrong.", ex);
+            throw new HibernateException(ex);
+        }
+    }
+
+    @Override
+    public long updateAll(Iterable<EntityType> entities) {
+        try (OperationTimer timer = OperationMetrics.start(repositoryName, "updateAll");
+             StatelessSession session = sessionFactory.openStatelessSession()) {
+            return TemplateProvider.statelessTemplate(session, () -> {
+                SecondLevelCache.evictOnCommit(session.getTransaction(), sessionFactory, entityClazz);
+                long updated = 0;
+                for (EntityType entity : entities) {
+                    session.update(entity);
+                    updated++;
+                }
+                return updated;
+            });
+        } catch (Exception ex) {
+            logger.error("Something went wrong.", ex);
+            throw new HibernateException(ex);
+        }
+    }
+
+    @Override
+    public long deleteAll(Iterable<EntityType> entities) {
+        try (OperationTimer timer = OperationMetrics.start(repositoryName, "deleteAll");
+             StatelessSession session = sessionFactory.openStatelessSession()) {
+            return TemplateProvider.statelessTemplate(session, () -> {
+                SecondLevelCache.evictOnCommit(session.getTransaction(), sessionFactory, entityClazz);
+                long deleted = 0;
+                for (EntityType entity : entities) {
+                    session.delete(entity);
+                    deleted++;
+                }
+                return deleted;
+            });
+        } catch (Exception ex) {
+            logger.error("Something went wrong.", ex);
+            throw new HibernateException(ex);
+        }
+    }
+
+    @Override
+    public long scan(Consumer<EntityType> consumer) {
+        try (OperationTimer timer = OperationMetrics.start(repositoryName, "scan");
+             StatelessSession session = sessionFactory.openStatelessSession()) {
+            return TemplateProvider.statelessTemplate(session, () -> {
+                long scanned = 0;
+                final ScrollableResults results = session.createQuery(metadata.getFindAllHql())
+                        .setFetchSize(fetchSize)
+                        .setReadOnly(true)
+                        .scroll(ScrollMode.FORWARD_ONLY);
+                try {
+                    while (results.next()) {
+                        consumer.accept(entityClazz.cast(results.get(0)));
+                        scanned++;
+                    }
+                } finally {
+                    results.close();
+                }
+                return scanned;
+            });
+        } catch (Exception ex) {
+            logger.error("Something went wrong.", ex);
+            throw new HibernateException(ex);
+        }
+    }
+}
@@ -5,6 +5,7 @@ import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.query.Query;
 import pg.hib.entities.TestEntity;
+import pg.hib.providers.OperationTimer;
 import pg.hib.providers.TemplateProvider;
 
 import java.util.List;
@@ -15,14 +16,18 @@ class TestBeanRepository extends AbstractRepository<TestEntity> implements TestE
         super(sessionFactory, TestEntity.class);
     }
 
+    public TestBeanRepository(SessionFactory sessionFactory, RepositorySettings settings) {
+        super(sessionFactory, TestEntity.class, settings);
+    }
+
     @Override
     public List<TestEntity> findByActive(boolean active) {
-        try (Session session = sessionFactory.openSession()) {
-            return TemplateProvider.collectionTemplate(session, () -> {
+        try (OperationTimer timer = time("findByActive"); Session session = openSession()) {
+            return TemplateProvider.readOnlyCollectionTemplate(session, () -> {
                 final String hql = String.format("FROM %s t WHERE t.active = :active ORDER BY t.id", this.entityName);
                 @SuppressWarnings("unchecked")
                 Query<List<TestEntity>> query = session.createQuery(hql);
-                query.setParameter("active", active);
+                cacheable(query).setParameter("active", active);
                 return castCollection(query);
             });
         } catch (Exception ex) {
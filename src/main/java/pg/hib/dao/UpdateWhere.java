@@ -0,0 +1,149 @@
+package pg.hib.dao;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Builds one set-based {@code UPDATE ... SET ... WHERE ...} through {@link CriteriaUpdate}; no entity is loaded.
+ * Attributes are validated against the mapping when they are added. Hibernate evicts the entity's second-level cache
+ * region for the statement, entities already in an open persistence context are not refreshed.
+ * <pre>
+ * int deactivated = cars.updateWhere()
+ *         .set("active", false)
+ *         .where((cb, car) -&gt; cb.lessThan(car.get("firstRegistrationDate"), cutOff))
+ *         .execute();
+ * </pre>
+ */
+public final class UpdateWhere<EntityType extends Serializable> {
+
+    private final EntityMetadata<EntityType> metadata;
+    private final ToIntFunction<UpdateWhere<EntityType>> executor;
+    private final List<Assignment<EntityType>> assignments = new ArrayList<>();
+    private final List<BiFunction<CriteriaBuilder, Root<EntityType>, Predicate>> predicates = new ArrayList<>();
+    private boolean allRows;
+
+    UpdateWhere(EntityMetadata<EntityType> metadata, ToIntFunction<UpdateWhere<EntityType>> executor) {
+        this.metadata = metadata;
+        this.executor = executor;
+    }
+
+    /** Assigns a constant; {@code null} clears the attribute. */
+    public UpdateWhere<EntityType> set(String attribute, Object value) {
+        final String name = requireUpdatable(attribute);
+        if (value != null && !boxed(metadata.getAttribute(name).getJavaType()).isInstance(value)) {
+            throw new IllegalArgumentException(String.format("%s of %s is %s, not %s.", name, metadata.getEntityName(),
+                    metadata.getAttribute(name).getJavaType().getSimpleName(), value.getClass().getSimpleName()));
+        }
+        assignments.add(new Assignment<>(name, null, value));
+        return this;
+    }
+
+    /** Assigns an expression computed by the database, e.g. a {@code CASE} over the current value. */
+    public UpdateWhere<EntityType> set(
+            String attribute, BiFunction<CriteriaBuilder, Root<EntityType>, Expression<?>> expression
+    ) {
+        assignments.add(new Assignment<>(requireUpdatable(attribute), expression, null));
+        return this;
+    }
+
+    /** Attribute or column equals the value; {@code null} matches {@code IS NULL}, a collection matches {@code IN}. */
+    public UpdateWhere<EntityType> where(String attribute, Object value) {
+        final String name = metadata.resolveAttributeName(attribute);
+        predicates.add((cb, from) -> AttributePredicates.of(cb, from.get(name), name, value));
+        return this;
+    }
+
+    public UpdateWhere<EntityType> where(BiFunction<CriteriaBuilder, Root<EntityType>, Predicate> predicate) {
+        predicates.add(predicate);
+        return this;
+    }
+
+    /** Required instead of a predicate to update the whole table, so that it never happens by omission. */
+    public UpdateWhere<EntityType> allRows() {
+        this.allRows = true;
+        return this;
+    }
+
+    /** Runs the statement in its own transaction, or in the surrounding unit of work, and returns the row count. */
+    public int execute() {
+        if (assignments.isEmpty()) {
+            throw new IllegalStateException("Nothing to update, call set(...) first.");
+        }
+        if (predicates.isEmpty() && !allRows) {
+            throw new IllegalStateException("No predicate given, call allRows() to update every row.");
+        }
+        return executor.applyAsInt(this);
+    }
+
+    void applyTo(CriteriaBuilder cb, CriteriaUpdate<EntityType> update, Root<EntityType> from) {
+        for (Assignment<EntityType> assignment : assignments) {
+            final Path<Object> attribute = from.get(assignment.attribute);
+            if (assignment.expression != null) {
+                @SuppressWarnings("unchecked")
+                final Expression<Object> value = (Expression<Object>) assignment.expression.apply(cb, from);
+                update.<Object>set(attribute, value);
+            } else if (assignment.value == null) {
+                update.<Object>set(attribute, cb.nullLiteral(attribute.getJavaType()));
+            } else {
+                update.set(attribute, assignment.value);
+            }
+        }
+        final Predicate[] where = new Predicate[predicates.size()];
+        for (int i = 0; i < where.length; i++) {
+            where[i] = predicates.get(i).apply(cb, from);
+        }
+        update.where(where);
+    }
+
+    private String requireUpdatable(String attribute) {
+        final String name = metadata.resolveAttributeName(attribute);
+        if (name.equals(metadata.getIdName())) {
+            throw new IllegalArgumentException(String.format("Id of %s can not be updated.", metadata.getEntityName()));
+        }
+        return name;
+    }
+
+    private static Class<?> boxed(Class<?> type) {
+        if (!type.isPrimitive()) {
+            return type;
+        }
+        if (type == boolean.class) {
+            return Boolean.class;
+        } else if (type == int.class) {
+            return Integer.class;
+        } else if (type == long.class) {
+            return Long.class;
+        } else if (type == short.class) {
+            return Short.class;
+        } else if (type == byte.class) {
+            return Byte.class;
+        } else if (type == double.class) {
+            return Double.class;
+        } else if (type == float.class) {
+            return Float.class;
+        }
+        return Character.class;
+    }
+
+    private static final class Assignment<EntityType> {
+        private final String attribute;
+        private final BiFunction<CriteriaBuilder, Root<EntityType>, Expression<?>> expression;
+        private final Object value;
+
+        private Assignment(String attribute, BiFunction<CriteriaBuilder, Root<EntityType>, Expression<?>> expression,
+                           Object value) {
+            this.attribute = attribute;
+            this.expression = expression;
+            this.value = value;
+        }
+    }
+}
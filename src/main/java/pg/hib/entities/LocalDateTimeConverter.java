@@ -6,13 +6,19 @@ import java.time.format.DateTimeFormatter;
 
 public class LocalDateTimeConverter implements AttributeConverter<LocalDateTime, String> {
 
+    private static final int DATE_LENGTH = "yyyy-MM-dd".length();
+
     @Override
     public String convertToDatabaseColumn(LocalDateTime localDateTime) {
         return localDateTime.format(DateTimeFormatter.ISO_DATE_TIME);
     }
 
+    /** Also reads {@code timestamp} columns, which PostgreSQL renders with a space instead of the {@code T}. */
     @Override
     public LocalDateTime convertToEntityAttribute(String s) {
+        if (s.length() > DATE_LENGTH && s.charAt(DATE_LENGTH) == ' ') {
+            s = s.substring(0, DATE_LENGTH) + 'T' + s.substring(DATE_LENGTH + 1);
+        }
         return LocalDateTime.parse(s, DateTimeFormatter.ISO_DATE_TIME);
     }
 }
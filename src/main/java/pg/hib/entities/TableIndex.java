@@ -0,0 +1,28 @@
+package pg.hib.entities;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Index created at bootstrap with {@code CREATE INDEX CONCURRENTLY IF NOT EXISTS}, independent of the hbm2ddl action.
+ * A non-empty {@link #where()} makes it a partial index.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Repeatable(TableIndexes.class)
+public @interface TableIndex {
+
+    /** Attribute or column names. */
+    String[] columns();
+
+    /** SQL predicate of a partial index, e.g. {@code active}. */
+    String where() default "";
+
+    /** Defaults to {@code <table>_<columns>_idx}. */
+    String name() default "";
+
+    boolean unique() default false;
+}
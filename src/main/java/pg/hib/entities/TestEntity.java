@@ -1,11 +1,18 @@
 package pg.hib.entities;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import javax.persistence.*;
 import java.io.Serializable;
 import java.time.LocalDateTime;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "test_bean")
 @Table(name = "test_bean")
+//findByActive(true) reads the active rows in id order straight from the index
+@TableIndex(name = "test_bean_active_idx", columns = "entityId", where = "active")
 public class TestEntity implements Serializable {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,37 @@
+package pg.hib.load;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.hibernate.HibernateException;
+
+import java.io.IOException;
+
+/** Throwaway PostgreSQL for running the load generator on a laptop without a local installation. */
+final class EmbeddedDatabase implements AutoCloseable {
+
+    private final EmbeddedPostgres postgres;
+
+    private EmbeddedDatabase(EmbeddedPostgres postgres) {
+        this.postgres = postgres;
+    }
+
+    static EmbeddedDatabase start() {
+        try {
+            return new EmbeddedDatabase(EmbeddedPostgres.builder().start());
+        } catch (IOException ex) {
+            throw new HibernateException("Embedded PostgreSQL could not be started.", ex);
+        }
+    }
+
+    String getJdbcUrl() {
+        return postgres.getJdbcUrl("postgres", "postgres") + "&reWriteBatchedInserts=true";
+    }
+
+    @Override
+    public void close() {
+        try {
+            postgres.close();
+        } catch (IOException ex) {
+            throw new HibernateException("Embedded PostgreSQL could not be stopped.", ex);
+        }
+    }
+}
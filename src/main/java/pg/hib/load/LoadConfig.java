@@ -0,0 +1,189 @@
+package pg.hib.load;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+public final class LoadConfig {
+
+    /** Comma separated {@code operation=weight} pairs, operation names as in {@link LoadOperation#getName()}. */
+    public static final String MIX = "pg.hib.load.mix";
+    public static final String CONCURRENCY = "pg.hib.load.concurrency";
+    /** Target operations per second over all workers, {@code 0} runs closed-loop as fast as possible. */
+    public static final String RATE = "pg.hib.load.rate";
+    public static final String DURATION_SECONDS = "pg.hib.load.duration_s";
+    /** Leading part of the run that is executed but left out of the report. */
+    public static final String WARM_UP_SECONDS = "pg.hib.load.warm_up_s";
+    /** Rows of each table written before the run when the table has fewer. */
+    public static final String SEED_ROWS = "pg.hib.load.seed_rows";
+    /** {@code true} starts a throwaway PostgreSQL instead of connecting to {@code pg.hib.url}. */
+    public static final String EMBEDDED = "pg.hib.load.embedded";
+
+    public static final String DEFAULT_MIX = "car.findById=35,car.findByIds=15,car.findByDate=10,bean.findById=15," +
+            "bean.findByActive=2,car.save=10,car.saveAll=3,bean.save=5,car.deleteByIds=5";
+
+    private final Map<LoadOperation, Integer> mix;
+    private final int concurrency;
+    private final double rate;
+    private final int durationSeconds;
+    private final int warmUpSeconds;
+    private final int seedRows;
+    private final boolean embedded;
+
+    private LoadConfig(Builder builder) {
+        this.mix = Collections.unmodifiableMap(new EnumMap<>(builder.mix));
+        this.concurrency = builder.concurrency;
+        this.rate = builder.rate;
+        this.durationSeconds = builder.durationSeconds;
+        this.warmUpSeconds = builder.warmUpSeconds;
+        this.seedRows = builder.seedRows;
+        this.embedded = builder.embedded;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static LoadConfig fromSystemProperties() {
+        return builder()
+                .mix(System.getProperty(MIX, DEFAULT_MIX))
+                .concurrency(Integer.getInteger(CONCURRENCY, 8))
+                .rate(Double.parseDouble(System.getProperty(RATE, "0")))
+                .durationSeconds(Integer.getInteger(DURATION_SECONDS, 60))
+                .warmUpSeconds(Integer.getInteger(WARM_UP_SECONDS, 10))
+                .seedRows(Integer.getInteger(SEED_ROWS, 10_000))
+                .embedded(Boolean.getBoolean(EMBEDDED))
+                .build();
+    }
+
+    public Map<LoadOperation, Integer> getMix() {
+        return mix;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    public int getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public int getWarmUpSeconds() {
+        return warmUpSeconds;
+    }
+
+    public int getSeedRows() {
+        return seedRows;
+    }
+
+    public boolean isEmbedded() {
+        return embedded;
+    }
+
+    @Override
+    public String toString() {
+        return "LoadConfig{" +
+                "mix=" + mix +
+                ", concurrency=" + concurrency +
+                ", rate=" + (rate > 0 ? String.valueOf(rate) : "unbounded") +
+                ", durationSeconds=" + durationSeconds +
+                ", warmUpSeconds=" + warmUpSeconds +
+                ", seedRows=" + seedRows +
+                ", embedded=" + embedded +
+                '}';
+    }
+
+    public static final class Builder {
+        private final Map<LoadOperation, Integer> mix = new EnumMap<>(LoadOperation.class);
+        private int concurrency = 8;
+        private double rate = 0;
+        private int durationSeconds = 60;
+        private int warmUpSeconds = 10;
+        private int seedRows = 10_000;
+        private boolean embedded = false;
+
+        private Builder() { }
+
+        public Builder weight(LoadOperation operation, int weight) {
+            if (weight < 0) {
+                throw new IllegalArgumentException(String.format("Weight of %s can not be negative.", operation.getName()));
+            }
+            if (weight == 0) {
+                mix.remove(operation);
+            } else {
+                mix.put(operation, weight);
+            }
+            return this;
+        }
+
+        /** Parses {@code car.findById=35,car.save=10}; operations left out are not run. */
+        public Builder mix(String mixDefinition) {
+            mix.clear();
+            for (String entry : mixDefinition.split(",")) {
+                if (entry.trim().isEmpty()) {
+                    continue;
+                }
+                final String[] operationAndWeight = entry.split("=");
+                if (operationAndWeight.length != 2) {
+                    throw new IllegalArgumentException(String.format("Expected operation=weight, got [%s].", entry));
+                }
+                weight(LoadOperation.byName(operationAndWeight[0].trim()),
+                        Integer.parseInt(operationAndWeight[1].trim()));
+            }
+            return this;
+        }
+
+        public Builder concurrency(int concurrency) {
+            if (concurrency < 1) {
+                throw new IllegalArgumentException("Concurrency has to be positive.");
+            }
+            this.concurrency = concurrency;
+            return this;
+        }
+
+        public Builder rate(double rate) {
+            if (rate < 0) {
+                throw new IllegalArgumentException("Rate can not be negative.");
+            }
+            this.rate = rate;
+            return this;
+        }
+
+        public Builder durationSeconds(int durationSeconds) {
+            if (durationSeconds < 1) {
+                throw new IllegalArgumentException("Duration has to be positive.");
+            }
+            this.durationSeconds = durationSeconds;
+            return this;
+        }
+
+        public Builder warmUpSeconds(int warmUpSeconds) {
+            if (warmUpSeconds < 0) {
+                throw new IllegalArgumentException("Warm-up can not be negative.");
+            }
+            this.warmUpSeconds = warmUpSeconds;
+            return this;
+        }
+
+        public Builder seedRows(int seedRows) {
+            this.seedRows = Math.max(0, seedRows);
+            return this;
+        }
+
+        public Builder embedded(boolean embedded) {
+            this.embedded = embedded;
+            return this;
+        }
+
+        public LoadConfig build() {
+            if (mix.isEmpty()) {
+                throw new IllegalArgumentException("The mix needs at least one operation with a positive weight.");
+            }
+            return new LoadConfig(this);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package pg.hib.load;
+
+import pg.hib.dao.CarDao;
+import pg.hib.dao.TestEntityDao;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/** Repositories and ids shared by the workers. */
+final class LoadContext {
+
+    private final CarDao cars;
+    private final TestEntityDao testBeans;
+    private final Serializable[] carIds;
+    private final Serializable[] testBeanIds;
+    private final Queue<Serializable> writtenCarIds = new ConcurrentLinkedQueue<>();
+
+    LoadContext(CarDao cars, TestEntityDao testBeans, List<? extends Serializable> carIds,
+                List<? extends Serializable> testBeanIds) {
+        if (carIds.isEmpty() || testBeanIds.isEmpty()) {
+            throw new IllegalStateException("Both tables need rows to read, seed them first.");
+        }
+        this.cars = cars;
+        this.testBeans = testBeans;
+        this.carIds = carIds.toArray(new Serializable[0]);
+        this.testBeanIds = testBeanIds.toArray(new Serializable[0]);
+    }
+
+    CarDao getCars() {
+        return cars;
+    }
+
+    TestEntityDao getTestBeans() {
+        return testBeans;
+    }
+
+    Serializable randomCarId(Random random) {
+        return carIds[random.nextInt(carIds.length)];
+    }
+
+    Serializable randomTestBeanId(Random random) {
+        return testBeanIds[random.nextInt(testBeanIds.length)];
+    }
+
+    void written(Serializable carId) {
+        writtenCarIds.add(carId);
+    }
+
+    List<Serializable> takeWritten(int max) {
+        final List<Serializable> ids = new ArrayList<>(max);
+        Serializable id;
+        while (ids.size() < max && (id = writtenCarIds.poll()) != null) {
+            ids.add(id);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,194 @@
+package pg.hib.load;
+
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pg.hib.dao.BasicCRUD;
+import pg.hib.dao.CarDao;
+import pg.hib.dao.DaoFactory;
+import pg.hib.dao.TestEntityDao;
+import pg.hib.entities.CarEntity;
+import pg.hib.entities.TestEntity;
+import pg.hib.providers.HibernateSessionProvider;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Drives {@link CarDao} and {@link TestEntityDao} with a weighted mix of calls from a fixed number of workers,
+ * optionally paced to a target rate, and reports throughput and latency percentiles per operation.
+ */
+public final class LoadGenerator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoadGenerator.class);
+    private static final int SEED_BATCH_SIZE = 1_000;
+
+    private final LoadConfig config;
+    private final LoadOperation[] operations;
+    private final int[] cumulativeWeights;
+
+    public LoadGenerator(LoadConfig config) {
+        this.config = config;
+        this.operations = config.getMix().keySet().toArray(new LoadOperation[0]);
+        this.cumulativeWeights = new int[operations.length];
+        int total = 0;
+        for (int i = 0; i < operations.length; i++) {
+            total += config.getMix().get(operations[i]);
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    /** Starts the embedded database if configured, boots Hibernate against it, runs and shuts everything down. */
+    public static LoadReport runStandalone(LoadConfig config) {
+        EmbeddedDatabase database = null;
+        if (config.isEmbedded()) {
+            database = EmbeddedDatabase.start();
+            System.setProperty(HibernateSessionProvider.URL, database.getJdbcUrl());
+            System.setProperty(HibernateSessionProvider.USER, "postgres");
+            System.setProperty(HibernateSessionProvider.PASSWORD, "postgres");
+            if (System.getProperty(HibernateSessionProvider.SCHEMA_ACTION) == null) {
+                System.setProperty(HibernateSessionProvider.SCHEMA_ACTION, "update");
+            }
+        }
+        try {
+            final SessionFactory sessionFactory = HibernateSessionProvider.getInstance().getSessionFactory();
+            try {
+                return new LoadGenerator(config).run(sessionFactory);
+            } finally {
+                sessionFactory.close();
+            }
+        } finally {
+            if (database != null) {
+                database.close();
+            }
+        }
+    }
+
+    public LoadReport run(SessionFactory sessionFactory) {
+        LOGGER.info("Starting load {}.", config);
+        final CarDao cars = DaoFactory.getCarRepository(sessionFactory);
+        final TestEntityDao testBeans = DaoFactory.getTestBeanRepository(sessionFactory);
+        final LoadContext context = new LoadContext(
+                cars, testBeans,
+                seed(cars, CarEntity::getId, () -> LoadOperation.newCar(ThreadLocalRandom.current())),
+                seed(testBeans, TestEntity::getEntityId,
+                        () -> new TestEntity(ThreadLocalRandom.current().nextBoolean(), LocalDateTime.now()))
+        );
+
+        final LoadReport report = new LoadReport(config.getMix().keySet());
+        final long start = System.nanoTime();
+        final long measureFrom = start + TimeUnit.SECONDS.toNanos(config.getWarmUpSeconds());
+        final long end = measureFrom + TimeUnit.SECONDS.toNanos(config.getDurationSeconds());
+        final long intervalNanos = config.getRate() > 0
+                ? (long) (TimeUnit.SECONDS.toNanos(1) * config.getConcurrency() / config.getRate())
+                : 0;
+
+        final AtomicInteger threadCount = new AtomicInteger();
+        final ExecutorService workers = Executors.newFixedThreadPool(config.getConcurrency(), runnable -> {
+            Thread thread = new Thread(runnable, "load-worker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            final List<Future<?>> running = new ArrayList<>(config.getConcurrency());
+            for (int worker = 0; worker < config.getConcurrency(); worker++) {
+                //staggered so paced workers do not all fire at once
+                final long firstStart = start + intervalNanos * worker / config.getConcurrency();
+                running.add(workers.submit(() -> work(context, report, firstStart, intervalNanos, measureFrom, end)));
+            }
+            for (Future<?> worker : running) {
+                worker.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Load run was interrupted.", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Load worker failed.", ex.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+        report.finish(end - measureFrom);
+        LOGGER.info("Load finished {}", report);
+        return report;
+    }
+
+    /**
+     * Latency is taken from the intended start: when the database stalls a paced worker falls behind its schedule
+     * and the calls it could not start count as slow instead of disappearing from the percentiles.
+     */
+    private void work(LoadContext context, LoadReport report, long firstStart, long intervalNanos, long measureFrom,
+                      long end) {
+        final Random random = ThreadLocalRandom.current();
+        long intended = firstStart;
+        while (!Thread.currentThread().isInterrupted()) {
+            long now = System.nanoTime();
+            if (intervalNanos > 0) {
+                while (now < intended) {
+                    LockSupport.parkNanos(intended - now);
+                    now = System.nanoTime();
+                }
+            } else {
+                intended = now;
+            }
+            if (intended >= end) {
+                return;
+            }
+            final LoadOperation operation = pick(random);
+            boolean failed = false;
+            try {
+                operation.run(context, random);
+            } catch (RuntimeException ex) {
+                failed = true;
+            }
+            if (intended >= measureFrom) {
+                report.record(operation, System.nanoTime() - intended, failed);
+            }
+            intended += intervalNanos;
+        }
+    }
+
+    private LoadOperation pick(Random random) {
+        final int ticket = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (ticket < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        return operations[operations.length - 1];
+    }
+
+    /** Ids of up to {@code seedRows} existing rows, topped up with new ones when the table has fewer. */
+    private <EntityType extends Serializable> List<Serializable> seed(
+            BasicCRUD<EntityType> repository, Function<EntityType, Serializable> id, Supplier<EntityType> factory
+    ) {
+        final List<Serializable> ids;
+        try (Stream<EntityType> existing = repository.streamAll()) {
+            ids = existing.limit(config.getSeedRows()).map(id).collect(toList());
+        }
+        while (ids.size() < config.getSeedRows()) {
+            final List<EntityType> batch = new ArrayList<>(SEED_BATCH_SIZE);
+            for (int i = 0; i < SEED_BATCH_SIZE && ids.size() + batch.size() < config.getSeedRows(); i++) {
+                batch.add(factory.get());
+            }
+            repository.saveAll(batch).forEach(saved -> ids.add(id.apply(saved)));
+        }
+        LOGGER.info("Load reads pick from {} seeded ids.", ids.size());
+        return ids;
+    }
+}
@@ -0,0 +1,110 @@
+package pg.hib.load;
+
+import pg.hib.entities.CarEntity;
+import pg.hib.entities.TestEntity;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/** Repository calls the load generator can mix; reads pick random ids out of the seeded rows. */
+public enum LoadOperation {
+
+    CAR_FIND_BY_ID("car.findById") {
+        @Override
+        void run(LoadContext context, Random random) {
+            context.getCars().findById(context.randomCarId(random));
+        }
+    },
+    CAR_FIND_BY_IDS("car.findByIds") {
+        @Override
+        void run(LoadContext context, Random random) {
+            final Set<Serializable> ids = new HashSet<>();
+            for (int i = 0; i < 10; i++) {
+                ids.add(context.randomCarId(random));
+            }
+            context.getCars().findByIds(ids);
+        }
+    },
+    CAR_FIND_BY_DATE("car.findByDate") {
+        @Override
+        void run(LoadContext context, Random random) {
+            context.getCars().findAllByFirstRegistrationDateAfter(LocalDateTime.now().minusMonths(random.nextInt(3) + 1));
+        }
+    },
+    CAR_SAVE("car.save") {
+        @Override
+        void run(LoadContext context, Random random) {
+            context.getCars().save(newCar(random)).ifPresent(car -> context.written(car.getId()));
+        }
+    },
+    CAR_SAVE_ALL("car.saveAll") {
+        @Override
+        void run(LoadContext context, Random random) {
+            final List<CarEntity> cars = new ArrayList<>(SAVE_ALL_SIZE);
+            for (int i = 0; i < SAVE_ALL_SIZE; i++) {
+                cars.add(newCar(random));
+            }
+            context.getCars().saveAll(cars).forEach(car -> context.written(car.getId()));
+        }
+    },
+    CAR_DELETE_BY_IDS("car.deleteByIds") {
+        @Override
+        void run(LoadContext context, Random random) {
+            //only rows written during the run, the seeded ones stay for the reads
+            final List<Serializable> ids = context.takeWritten(SAVE_ALL_SIZE);
+            if (!ids.isEmpty()) {
+                context.getCars().deleteByIds(ids);
+            }
+        }
+    },
+    BEAN_FIND_BY_ID("bean.findById") {
+        @Override
+        void run(LoadContext context, Random random) {
+            context.getTestBeans().findById(context.randomTestBeanId(random));
+        }
+    },
+    BEAN_FIND_BY_ACTIVE("bean.findByActive") {
+        @Override
+        void run(LoadContext context, Random random) {
+            context.getTestBeans().findByActive(random.nextBoolean());
+        }
+    },
+    BEAN_SAVE("bean.save") {
+        @Override
+        void run(LoadContext context, Random random) {
+            context.getTestBeans().save(new TestEntity(random.nextBoolean(), LocalDateTime.now()));
+        }
+    };
+
+    private static final int SAVE_ALL_SIZE = 20;
+
+    private final String name;
+
+    LoadOperation(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    abstract void run(LoadContext context, Random random);
+
+    public static LoadOperation byName(String name) {
+        for (LoadOperation operation : values()) {
+            if (operation.name.equals(name)) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Unknown load operation [%s].", name));
+    }
+
+    static CarEntity newCar(Random random) {
+        return new CarEntity(random.nextBoolean(), LocalDateTime.now(), LocalDateTime.now().minusMonths(random.nextInt(250)));
+    }
+}
@@ -0,0 +1,78 @@
+package pg.hib.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/** Latency in microseconds, measured from the intended start of each call so a stalled database is not hidden. */
+public final class LoadReport {
+
+    private final Map<LoadOperation, Histogram> latencies = new EnumMap<>(LoadOperation.class);
+    private final Map<LoadOperation, LongAdder> errors = new EnumMap<>(LoadOperation.class);
+    private volatile long measuredNanos;
+
+    LoadReport(Iterable<LoadOperation> operations) {
+        for (LoadOperation operation : operations) {
+            latencies.put(operation, new ConcurrentHistogram(3));
+            errors.put(operation, new LongAdder());
+        }
+    }
+
+    void record(LoadOperation operation, long latencyNanos, boolean failed) {
+        latencies.get(operation).recordValue(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+        if (failed) {
+            errors.get(operation).increment();
+        }
+    }
+
+    void finish(long measuredNanos) {
+        this.measuredNanos = measuredNanos;
+    }
+
+    public Map<LoadOperation, Histogram> getLatencies() {
+        return Collections.unmodifiableMap(latencies);
+    }
+
+    public long getErrors(LoadOperation operation) {
+        return errors.get(operation).sum();
+    }
+
+    public double getThroughput(LoadOperation operation) {
+        return measuredNanos == 0 ? 0 : latencies.get(operation).getTotalCount() / (measuredNanos / 1e9);
+    }
+
+    public double getTotalThroughput() {
+        double total = 0;
+        for (LoadOperation operation : latencies.keySet()) {
+            total += getThroughput(operation);
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder report = new StringBuilder(String.format(
+                "%n%-18s %10s %8s %10s %10s %10s %10s %10s%n",
+                "operation", "count", "errors", "ops/s", "p50 ms", "p99 ms", "p999 ms", "max ms"
+        ));
+        for (Map.Entry<LoadOperation, Histogram> entry : latencies.entrySet()) {
+            final Histogram histogram = entry.getValue();
+            report.append(String.format("%-18s %10d %8d %10.1f %10.2f %10.2f %10.2f %10.2f%n",
+                    entry.getKey().getName(), histogram.getTotalCount(), getErrors(entry.getKey()),
+                    getThroughput(entry.getKey()), millis(histogram.getValueAtPercentile(50)),
+                    millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+                    millis(histogram.getMaxValue())));
+        }
+        report.append(String.format("%-18s %30.1f%n", "total", getTotalThroughput()));
+        return report.toString();
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
@@ -0,0 +1,131 @@
+package pg.hib.migration;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pg.hib.dao.EntityMetadata;
+import pg.hib.dao.EntityMetadataRegistry;
+import pg.hib.entities.TableIndex;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Creates the {@link TableIndex} declarations of every mapped entity. A {@code CREATE INDEX CONCURRENTLY} that failed
+ * or was interrupted leaves an invalid index behind which {@code IF NOT EXISTS} would skip forever, so invalid indexes
+ * are dropped and built again.
+ */
+public final class IndexManager {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IndexManager.class);
+    private static final String IS_VALID_SQL = "SELECT indisvalid FROM pg_index WHERE indexrelid = to_regclass(?)";
+
+    private IndexManager() { }
+
+    /**
+     * Failures are logged and skipped, e.g. when the tables do not exist yet; returns the names of the indexes that
+     * could not be created.
+     */
+    public static List<String> apply(SessionFactory sessionFactory) {
+        final Map<String, String> statements = new LinkedHashMap<>();
+        for (EntityMetadata<?> metadata : EntityMetadataRegistry.forSessionFactory(sessionFactory).getAll()) {
+            for (TableIndex index : metadata.getEntityClass().getAnnotationsByType(TableIndex.class)) {
+                statements.put(indexName(metadata, index), createIndexSql(metadata, index));
+            }
+        }
+        final List<String> failed = new ArrayList<>();
+        if (statements.isEmpty()) {
+            return failed;
+        }
+        final ConnectionProvider connectionProvider = sessionFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(ConnectionProvider.class);
+        Connection connection = null;
+        try {
+            connection = connectionProvider.getConnection();
+            //CONCURRENTLY can not run inside a transaction block
+            connection.setAutoCommit(true);
+            for (Map.Entry<String, String> index : statements.entrySet()) {
+                try {
+                    ensureIndex(connection, index.getKey(), index.getValue());
+                    LOGGER.info("Index ensured: {}", index.getValue());
+                } catch (SQLException ex) {
+                    LOGGER.error("Index could not be created: {}", index.getValue(), ex);
+                    failed.add(index.getKey());
+                }
+            }
+        } catch (SQLException ex) {
+            LOGGER.error("Indexes could not be applied.", ex);
+            failed.clear();
+            failed.addAll(statements.keySet());
+        } finally {
+            if (connection != null) {
+                try {
+                    connection.setAutoCommit(false);
+                    connectionProvider.closeConnection(connection);
+                } catch (SQLException ex) {
+                    LOGGER.warn("Connection could not be returned to the pool.", ex);
+                }
+            }
+        }
+        return failed;
+    }
+
+    /** Runs the {@code CREATE INDEX CONCURRENTLY IF NOT EXISTS} after dropping an invalid index of that name. */
+    static void ensureIndex(Connection connection, String name, String createSql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            if (isInvalid(connection, name)) {
+                LOGGER.warn("Index {} is invalid, probably left by an interrupted build; rebuilding it.", name);
+                statement.execute("DROP INDEX CONCURRENTLY IF EXISTS " + name);
+            }
+            statement.execute(createSql);
+        }
+    }
+
+    private static boolean isInvalid(Connection connection, String name) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(IS_VALID_SQL)) {
+            statement.setString(1, name);
+            try (ResultSet result = statement.executeQuery()) {
+                return result.next() && !result.getBoolean(1);
+            }
+        }
+    }
+
+    static String createIndexSql(EntityMetadata<?> metadata, TableIndex index) {
+        final StringBuilder sql = new StringBuilder(String.format("CREATE %sINDEX CONCURRENTLY IF NOT EXISTS %s ON %s (%s)",
+                index.unique() ? "UNIQUE " : "", indexName(metadata, index), metadata.getTableName(),
+                String.join(", ", columns(metadata, index))));
+        if (!index.where().isEmpty()) {
+            sql.append(" WHERE ").append(index.where());
+        }
+        return sql.toString();
+    }
+
+    static String indexName(EntityMetadata<?> metadata, TableIndex index) {
+        return index.name().isEmpty() ? defaultName(metadata.getTableName(), columns(metadata, index)) : index.name();
+    }
+
+    static String defaultName(String table, List<String> columns) {
+        return table + "_" + String.join("_", columns) + "_idx";
+    }
+
+    private static List<String> columns(EntityMetadata<?> metadata, TableIndex index) {
+        return Arrays.stream(index.columns())
+                .map(metadata::resolveColumnName)
+                .map(column -> column.toLowerCase(Locale.ROOT))
+                .collect(toList());
+    }
+}
@@ -0,0 +1,323 @@
+package pg.hib.migration;
+
+import org.hibernate.HibernateException;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pg.hib.dao.EntityMetadata;
+import pg.hib.dao.EntityMetadataRegistry;
+import pg.hib.entities.CarEntity;
+import pg.hib.entities.TestEntity;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converts ISO text columns written by {@code LocalDateTimeConverter} into native {@code timestamp} columns while the
+ * service keeps writing:
+ * <ol>
+ *     <li>adds a {@code timestamp} shadow column and a trigger copying every write of the text column into it,</li>
+ *     <li>backfills the shadow column in id-range chunks, one short transaction each,</li>
+ *     <li>swaps the columns under a brief exclusive lock, keeping the text column as {@code <column>_text},</li>
+ *     <li>builds the requested btree indexes with {@code CREATE INDEX CONCURRENTLY}, named like the
+ *     {@link pg.hib.entities.TableIndex} defaults so bootstrap finds them in place.</li>
+ * </ol>
+ * Every step is idempotent, so an interrupted run can simply be started again. Instances still mapping the column
+ * as text keep working through the swap only if they already run a {@code LocalDateTimeConverter} that reads the
+ * space-separated form PostgreSQL renders for {@code timestamp}, and a JDBC URL with {@code stringtype=unspecified}
+ * (the default URL of {@code HibernateSessionProvider}) so that their text binds are cast on write. Deploy that
+ * first, run the migration, then restart the instances with {@code pg.hib.native_timestamps=true}.
+ * {@link #dropTextColumns()} removes the old columns once nothing rolls back.
+ */
+public final class TimestampColumnMigration {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TimestampColumnMigration.class);
+    private static final String SHADOW_SUFFIX = "_ts";
+    private static final String TEXT_SUFFIX = "_text";
+
+    private final ConnectionProvider connectionProvider;
+    private final List<Target> targets;
+    private final int chunkSize;
+    private final long pauseMillis;
+
+    private TimestampColumnMigration(Builder builder) {
+        this.connectionProvider = builder.sessionFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(ConnectionProvider.class);
+        this.targets = new ArrayList<>(builder.targets);
+        this.chunkSize = builder.chunkSize;
+        this.pauseMillis = builder.pauseMillis;
+    }
+
+    public static Builder builder(SessionFactory sessionFactory) {
+        return new Builder(sessionFactory);
+    }
+
+    /** The columns of CarEntity and TestEntity converted by {@code LocalDateTimeConverter}. */
+    public static TimestampColumnMigration forConvertedColumns(SessionFactory sessionFactory) {
+        final EntityMetadataRegistry registry = EntityMetadataRegistry.forSessionFactory(sessionFactory);
+        return builder(sessionFactory)
+                .column(registry.get(CarEntity.class), "created", false)
+                .column(registry.get(CarEntity.class), "firstRegistrationDate", true)
+                .column(registry.get(TestEntity.class), "created", false)
+                .build();
+    }
+
+    public void run() {
+        for (Target target : targets) {
+            if (isTimestamp(target)) {
+                LOGGER.info("{} is already a timestamp column.", target);
+            } else {
+                prepare(target);
+                backfill(target);
+                swap(target);
+            }
+            if (target.indexed) {
+                createIndex(target);
+            }
+        }
+    }
+
+    public void dropTextColumns() {
+        for (Target target : targets) {
+            execute(String.format("ALTER TABLE %s DROP COLUMN IF EXISTS %s", target.table, target.column + TEXT_SUFFIX));
+        }
+    }
+
+    private void prepare(Target target) {
+        final String shadow = target.column + SHADOW_SUFFIX;
+        execute(
+                String.format("ALTER TABLE %s ADD COLUMN IF NOT EXISTS %s timestamp", target.table, shadow),
+                String.format("CREATE OR REPLACE FUNCTION %s() RETURNS trigger AS $$ BEGIN " +
+                        "NEW.%s := CAST(NEW.%s AS timestamp); RETURN NEW; END $$ LANGUAGE plpgsql",
+                        target.triggerName(), shadow, target.column),
+                String.format("DROP TRIGGER IF EXISTS %1$s ON %2$s", target.triggerName(), target.table),
+                String.format("CREATE TRIGGER %1$s BEFORE INSERT OR UPDATE OF %2$s ON %3$s " +
+                        "FOR EACH ROW EXECUTE PROCEDURE %1$s()", target.triggerName(), target.column, target.table)
+        );
+        LOGGER.info("{} is dual-written into {}.", target, shadow);
+    }
+
+    private void backfill(Target target) {
+        final long[] range = idRange(target);
+        if (range == null) {
+            return;
+        }
+        final String sql = String.format(
+                "UPDATE %1$s SET %2$s = CAST(%3$s AS timestamp) WHERE %4$s BETWEEN ? AND ? AND %2$s IS NULL AND %3$s IS NOT NULL",
+                target.table, target.column + SHADOW_SUFFIX, target.column, target.idColumn
+        );
+        final long converted = withConnection("Backfill of " + target + " failed.", connection -> {
+            long rows = 0;
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (long lower = range[0]; lower <= range[1]; lower += chunkSize) {
+                    statement.setLong(1, lower);
+                    statement.setLong(2, lower + chunkSize - 1);
+                    rows += statement.executeUpdate();
+                    connection.commit();
+                    pause();
+                }
+            }
+            return rows;
+        });
+        LOGGER.info("{}: {} rows backfilled.", target, converted);
+    }
+
+    private void swap(Target target) {
+        final String shadow = target.column + SHADOW_SUFFIX;
+        execute(
+                String.format("LOCK TABLE %s IN ACCESS EXCLUSIVE MODE", target.table),
+                //rows written between the last chunk and the lock
+                String.format("UPDATE %1$s SET %2$s = CAST(%3$s AS timestamp) WHERE %2$s IS NULL AND %3$s IS NOT NULL",
+                        target.table, shadow, target.column),
+                String.format("DROP TRIGGER IF EXISTS %s ON %s", target.triggerName(), target.table),
+                String.format("DROP FUNCTION IF EXISTS %s()", target.triggerName()),
+                //an index on the text column would otherwise keep the name the timestamp index needs
+                String.format("DROP INDEX IF EXISTS %s", target.indexName()),
+                String.format("ALTER TABLE %s RENAME COLUMN %s TO %s", target.table, target.column, target.column + TEXT_SUFFIX),
+                String.format("ALTER TABLE %s RENAME COLUMN %s TO %s", target.table, shadow, target.column)
+        );
+        LOGGER.info("{} now is a timestamp column.", target);
+    }
+
+    private void createIndex(Target target) {
+        final String sql = String.format("CREATE INDEX CONCURRENTLY IF NOT EXISTS %s ON %s (%s)",
+                target.indexName(), target.table, target.column);
+        withConnection("Index on " + target + " could not be created.", connection -> {
+            //CONCURRENTLY can not run inside a transaction block
+            connection.setAutoCommit(true);
+            try {
+                IndexManager.ensureIndex(connection, target.indexName(), sql);
+                return null;
+            } finally {
+                connection.setAutoCommit(false);
+            }
+        });
+        LOGGER.info("{} is indexed.", target);
+    }
+
+    private boolean isTimestamp(Target target) {
+        final String sql = "SELECT data_type FROM information_schema.columns WHERE table_name = ? AND column_name = ?";
+        return withConnection("Type of " + target + " could not be read.", connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setString(1, target.table);
+                statement.setString(2, target.column);
+                try (ResultSet result = statement.executeQuery()) {
+                    return result.next() && result.getString(1).startsWith("timestamp");
+                }
+            } finally {
+                connection.rollback();
+            }
+        });
+    }
+
+    private long[] idRange(Target target) {
+        final String sql = String.format("SELECT MIN(%1$s), MAX(%1$s) FROM %2$s", target.idColumn, target.table);
+        return withConnection("Id range of " + target.table + " could not be read.", connection -> {
+            try (Statement statement = connection.createStatement(); ResultSet result = statement.executeQuery(sql)) {
+                result.next();
+                final long min = result.getLong(1);
+                return result.wasNull() ? null : new long[]{min, result.getLong(2)};
+            } finally {
+                connection.rollback();
+            }
+        });
+    }
+
+    /** Runs the statements in one transaction. */
+    private void execute(String... statements) {
+        withConnection("Migration statement failed.", connection -> {
+            try (Statement statement = connection.createStatement()) {
+                for (String sql : statements) {
+                    statement.execute(sql);
+                }
+            }
+            connection.commit();
+            return null;
+        });
+    }
+
+    /** Borrows a connection from the session factory's pool, a failed unit of work is rolled back. */
+    private <T> T withConnection(String failure, SqlWork<T> work) {
+        Connection connection = null;
+        try {
+            connection = connectionProvider.getConnection();
+            return work.run(connection);
+        } catch (SQLException ex) {
+            rollbackQuietly(connection);
+            throw new HibernateException(failure, ex);
+        } finally {
+            if (connection != null) {
+                try {
+                    connectionProvider.closeConnection(connection);
+                } catch (SQLException ex) {
+                    LOGGER.warn("Connection could not be returned to the pool.", ex);
+                }
+            }
+        }
+    }
+
+    private static void rollbackQuietly(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+            }
+        } catch (SQLException ex) {
+            LOGGER.warn("Rollback failed.", ex);
+        }
+    }
+
+    private void pause() {
+        if (pauseMillis <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.MILLISECONDS.sleep(pauseMillis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new HibernateException("Backfill interrupted.", ex);
+        }
+    }
+
+    @FunctionalInterface
+    private interface SqlWork<T> {
+        T run(Connection connection) throws SQLException;
+    }
+
+    private static final class Target {
+
+        private final String table;
+        private final String idColumn;
+        private final String column;
+        private final boolean indexed;
+
+        private Target(EntityMetadata<?> metadata, String attribute, boolean indexed) {
+            this.table = metadata.getTableName();
+            this.idColumn = metadata.getIdColumnName();
+            //unquoted identifiers are folded to lower case by PostgreSQL
+            this.column = metadata.resolveColumnName(attribute).toLowerCase();
+            this.indexed = indexed;
+        }
+
+        private String indexName() {
+            return IndexManager.defaultName(table, Collections.singletonList(column));
+        }
+
+        private String triggerName() {
+            return table + "_" + column + "_ts_sync";
+        }
+
+        @Override
+        public String toString() {
+            return table + "." + column;
+        }
+    }
+
+    public static final class Builder {
+
+        private final SessionFactory sessionFactory;
+        private final List<Target> targets = new ArrayList<>();
+        private int chunkSize = 10_000;
+        private long pauseMillis = 0;
+
+        private Builder(SessionFactory sessionFactory) {
+            this.sessionFactory = sessionFactory;
+        }
+
+        /** Attribute converted from ISO text, {@code indexed} adds a btree index for range queries. */
+        public Builder column(EntityMetadata<?> metadata, String attribute, boolean indexed) {
+            targets.add(new Target(metadata, attribute, indexed));
+            return this;
+        }
+
+        public Builder chunkSize(int chunkSize) {
+            if (chunkSize < 1) {
+                throw new IllegalArgumentException("Chunk size has to be positive.");
+            }
+            this.chunkSize = chunkSize;
+            return this;
+        }
+
+        /** Pause between backfill chunks to leave room for the regular load. */
+        public Builder pauseMillis(long pauseMillis) {
+            this.pauseMillis = pauseMillis;
+            return this;
+        }
+
+        public TimestampColumnMigration build() {
+            return new TimestampColumnMigration(this);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package pg.hib.providers;
+
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public final class CacheMetrics {
+
+    private final long secondLevelHits;
+    private final long secondLevelMisses;
+    private final long secondLevelPuts;
+    private final long queryHits;
+    private final long queryMisses;
+    private final long queryPuts;
+    private final Map<String, RegionMetrics> regions;
+
+    private CacheMetrics(long secondLevelHits, long secondLevelMisses, long secondLevelPuts,
+                         long queryHits, long queryMisses, long queryPuts, Map<String, RegionMetrics> regions) {
+        this.secondLevelHits = secondLevelHits;
+        this.secondLevelMisses = secondLevelMisses;
+        this.secondLevelPuts = secondLevelPuts;
+        this.queryHits = queryHits;
+        this.queryMisses = queryMisses;
+        this.queryPuts = queryPuts;
+        this.regions = regions;
+    }
+
+    static CacheMetrics of(Statistics statistics) {
+        Map<String, RegionMetrics> regions = new LinkedHashMap<>();
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            final CacheRegionStatistics regionStatistics = statistics.getDomainDataRegionStatistics(region);
+            regions.put(region, new RegionMetrics(
+                    regionStatistics.getHitCount(),
+                    regionStatistics.getMissCount(),
+                    regionStatistics.getPutCount(),
+                    regionStatistics.getElementCountInMemory()
+            ));
+        }
+        return new CacheMetrics(
+                statistics.getSecondLevelCacheHitCount(),
+                statistics.getSecondLevelCacheMissCount(),
+                statistics.getSecondLevelCachePutCount(),
+                statistics.getQueryCacheHitCount(),
+                statistics.getQueryCacheMissCount(),
+                statistics.getQueryCachePutCount(),
+                Collections.unmodifiableMap(regions)
+        );
+    }
+
+    public long getSecondLevelHits() {
+        return secondLevelHits;
+    }
+
+    public long getSecondLevelMisses() {
+        return secondLevelMisses;
+    }
+
+    public long getSecondLevelPuts() {
+        return secondLevelPuts;
+    }
+
+    public double getSecondLevelHitRatio() {
+        return ratio(secondLevelHits, secondLevelMisses);
+    }
+
+    public long getQueryHits() {
+        return queryHits;
+    }
+
+    public long getQueryMisses() {
+        return queryMisses;
+    }
+
+    public long getQueryPuts() {
+        return queryPuts;
+    }
+
+    public double getQueryHitRatio() {
+        return ratio(queryHits, queryMisses);
+    }
+
+    /** Entity region statistics keyed by region name. */
+    public Map<String, RegionMetrics> getRegions() {
+        return regions;
+    }
+
+    private static double ratio(long hits, long misses) {
+        final long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheMetrics{" +
+                "l2Hits=" + secondLevelHits +
+                ", l2Misses=" + secondLevelMisses +
+                ", l2Puts=" + secondLevelPuts +
+                ", l2HitRatio=" + String.format("%.3f", getSecondLevelHitRatio()) +
+                ", queryHits=" + queryHits +
+                ", queryMisses=" + queryMisses +
+                ", queryPuts=" + queryPuts +
+                ", queryHitRatio=" + String.format("%.3f", getQueryHitRatio()) +
+                ", regions=" + regions +
+                '}';
+    }
+
+    public static final class RegionMetrics {
+
+        private final long hits;
+        private final long misses;
+        private final long puts;
+        private final long elementsInMemory;
+
+        RegionMetrics(long hits, long misses, long puts, long elementsInMemory) {
+            this.hits = hits;
+            this.misses = misses;
+            this.puts = puts;
+            this.elementsInMemory = elementsInMemory;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public long getPuts() {
+            return puts;
+        }
+
+        public long getElementsInMemory() {
+            return elementsInMemory;
+        }
+
+        public double getHitRatio() {
+            return ratio(hits, misses);
+        }
+
+        @Override
+        public String toString() {
+            return "{hits=" + hits + ", misses=" + misses + ", puts=" + puts + ", size=" + elementsInMemory + '}';
+        }
+    }
+}
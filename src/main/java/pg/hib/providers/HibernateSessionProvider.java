@@ -1,18 +1,77 @@
 package pg.hib.providers;
 
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
 import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
-import org.hibernate.cfg.Configuration;
+import org.hibernate.cache.jcache.ConfigSettings;
 import org.hibernate.cfg.Environment;
-import org.hibernate.service.ServiceRegistry;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.mapping.Column;
+import org.hibernate.mapping.PersistentClass;
+import org.hibernate.mapping.SimpleValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pg.hib.dao.EntityMetadata;
+import pg.hib.dao.EntityMetadataRegistry;
+import pg.hib.dao.RepositorySettings;
 import pg.hib.entities.CarEntity;
 import pg.hib.entities.TestEntity;
+import pg.hib.migration.IndexManager;
 
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class HibernateSessionProvider {
 
-    private static SessionFactory sessionFactory;
+    /** {@code identity} (default) or {@code sequence}; only sequence ids let Hibernate batch inserts. */
+    public static final String ID_GENERATION = "pg.hib.id_generation";
+    public static final String ID_ALLOCATION_SIZE = "pg.hib.id_allocation_size";
+    public static final String URL = "pg.hib.url";
+    public static final String USER = "pg.hib.user";
+    public static final String PASSWORD = "pg.hib.password";
+    /** hbm2ddl action such as {@code validate} or {@code update}; schema is not touched unless this is set. */
+    public static final String SCHEMA_ACTION = "pg.hib.schema_action";
+    /** {@code true} compiles the generic repository queries and fills the pool before the factory is handed out. */
+    public static final String WARM_UP = "pg.hib.warm_up";
+    /**
+     * {@code true} maps the temporal attributes to native {@code timestamp} columns instead of ISO text, once the
+     * columns have been converted with {@link pg.hib.migration.TimestampColumnMigration}.
+     */
+    public static final String NATIVE_TIMESTAMPS = "pg.hib.native_timestamps";
+    /**
+     * {@code create} builds the {@link pg.hib.entities.TableIndex} declarations on the bootstrap thread after the session
+     * factory has been handed out, see {@link #getIndexBuild()}. Indexes are not touched unless this is set.
+     */
+    public static final String INDEX_ACTION = "pg.hib.index_action";
+    /** {@code false} turns off the second-level entity and query caches, on by default. */
+    public static final String CACHE = "pg.hib.cache";
+    /** {@code true} prints every statement to stdout; {@link SlowQueryLog#ENABLED} logs only the slow ones. */
+    public static final String SHOW_SQL = "pg.hib.show_sql";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HibernateSessionProvider.class);
+    private static final String DEFAULT_ID_ALLOCATION_SIZE = "50";
+
+    private static final AtomicReference<CompletableFuture<SessionFactory>> SESSION_FACTORY = new AtomicReference<>();
+    private static final CompletableFuture<List<String>> INDEX_BUILD = new CompletableFuture<>();
+
+    private static volatile HikariConnectionProvider connectionProvider;
+    private static volatile long bootTimeMillis = -1;
+    private static volatile long warmUpTimeMillis = -1;
 
     private HibernateSessionProvider() { }
 
@@ -25,28 +84,272 @@ public class HibernateSessionProvider {
     }
 
     public SessionFactory getSessionFactory() {
-        if (sessionFactory == null) {
-            Properties settings = new Properties();
-            settings.put(Environment.DRIVER, "org.postgresql.Driver");
-            settings.put(Environment.URL, "jdbc:postgresql://localhost:5432/local-hib");
-            settings.put(Environment.USER, "postgres");
-            settings.put(Environment.PASS, "postgres");
-            settings.put(Environment.DIALECT, "org.hibernate.dialect.PostgreSQL10Dialect");
-            settings.put(Environment.SHOW_SQL, "true");
-            settings.put(Environment.CURRENT_SESSION_CONTEXT_CLASS, "thread");
-            settings.put(Environment.HBM2DDL_AUTO, "update");
-
-            Configuration cfg = new Configuration()
-                    .setProperties(settings)
+        try {
+            return getSessionFactoryAsync().join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof HibernateException) {
+                throw (HibernateException) ex.getCause();
+            }
+            throw new HibernateException(ex.getCause());
+        }
+    }
+
+    /** Starts the bootstrap on a background thread on first call; every caller gets the same future. */
+    public CompletableFuture<SessionFactory> getSessionFactoryAsync() {
+        CompletableFuture<SessionFactory> future = SESSION_FACTORY.get();
+        if (future != null) {
+            return future;
+        }
+        final CompletableFuture<SessionFactory> created = new CompletableFuture<>();
+        if (!SESSION_FACTORY.compareAndSet(null, created)) {
+            return SESSION_FACTORY.get();
+        }
+        Thread bootstrap = new Thread(() -> {
+            final SessionFactory sessionFactory;
+            try {
+                sessionFactory = buildSessionFactory();
+            } catch (Throwable ex) {
+                LOGGER.error("Session factory could not be built.", ex);
+                //lets the next caller retry
+                SESSION_FACTORY.compareAndSet(created, null);
+                created.completeExceptionally(ex);
+                return;
+            }
+            created.complete(sessionFactory);
+            buildIndexes(sessionFactory);
+        }, "session-factory-bootstrap");
+        bootstrap.setDaemon(true);
+        bootstrap.start();
+        return created;
+    }
+
+    /** Concurrent index builds can take long on big tables, callers do not wait for them unless they ask to. */
+    private static void buildIndexes(SessionFactory sessionFactory) {
+        final String indexAction = System.getProperty(INDEX_ACTION);
+        if (indexAction == null) {
+            INDEX_BUILD.complete(Collections.emptyList());
+            return;
+        }
+        if (!"create".equalsIgnoreCase(indexAction)) {
+            LOGGER.error("Unknown {}={}, indexes are left alone.", INDEX_ACTION, indexAction);
+            INDEX_BUILD.complete(Collections.emptyList());
+            return;
+        }
+        try {
+            final List<String> failed = IndexManager.apply(sessionFactory);
+            if (!failed.isEmpty()) {
+                LOGGER.error("Indexes could not be built: {}", failed);
+            }
+            INDEX_BUILD.complete(failed);
+        } catch (RuntimeException ex) {
+            LOGGER.error("Indexes could not be applied.", ex);
+            INDEX_BUILD.completeExceptionally(ex);
+        }
+    }
+
+    private static SessionFactory buildSessionFactory() {
+        final long start = System.nanoTime();
+        Properties settings = new Properties();
+        settings.put(Environment.DRIVER, "org.postgresql.Driver");
+        //stringtype=unspecified lets text-mapped instances keep writing while TimestampColumnMigration swaps columns
+        settings.put(Environment.URL, System.getProperty(URL,
+                "jdbc:postgresql://localhost:5432/local-hib?reWriteBatchedInserts=true&stringtype=unspecified"));
+        settings.put(Environment.USER, System.getProperty(USER, "postgres"));
+        settings.put(Environment.PASS, System.getProperty(PASSWORD, "postgres"));
+        final HikariConnectionProvider provider = new HikariConnectionProvider();
+        settings.put(Environment.CONNECTION_PROVIDER, provider);
+        settings.put(Environment.CONNECTION_PROVIDER_DISABLES_AUTOCOMMIT, "true");
+        settings.put(Environment.DIALECT, "org.hibernate.dialect.PostgreSQL10Dialect");
+        settings.put(Environment.SHOW_SQL, System.getProperty(SHOW_SQL, "false"));
+        settings.put(Environment.CURRENT_SESSION_CONTEXT_CLASS, "thread");
+        final String schemaAction = System.getProperty(SCHEMA_ACTION);
+        if (schemaAction != null) {
+            settings.put(Environment.HBM2DDL_AUTO, schemaAction);
+        }
+        settings.put(Environment.STATEMENT_BATCH_SIZE, String.valueOf(RepositorySettings.DEFAULT_BATCH_SIZE));
+        settings.put(Environment.ORDER_INSERTS, "true");
+        settings.put(Environment.ORDER_UPDATES, "true");
+        settings.put(Environment.BATCH_VERSIONED_DATA, "true");
+        if (Boolean.parseBoolean(System.getProperty(CACHE, "true"))) {
+            //regions are configured in application.conf
+            settings.put(Environment.USE_SECOND_LEVEL_CACHE, "true");
+            settings.put(Environment.USE_QUERY_CACHE, "true");
+            settings.put(Environment.CACHE_REGION_FACTORY, "jcache");
+            settings.put(ConfigSettings.PROVIDER, "com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider");
+            settings.put(ConfigSettings.MISSING_CACHE_STRATEGY, "create");
+            settings.put(Environment.GENERATE_STATISTICS, "true");
+        }
+
+        StandardServiceRegistry serviceRegistry = new StandardServiceRegistryBuilder()
+                .applySettings(settings)
+                .build();
+        SessionFactory sessionFactory = null;
+        try {
+            MetadataSources sources = new MetadataSources(serviceRegistry)
                     .addAnnotatedClass(TestEntity.class)
                     .addAnnotatedClass(CarEntity.class);
+            if (Boolean.parseBoolean(System.getProperty(NATIVE_TIMESTAMPS, "false"))) {
+                sources.addResource("META-INF/native-timestamps-orm.xml");
+            }
+            Metadata metadata = sources.buildMetadata();
+
+            Map<String, String> sequences = new LinkedHashMap<>();
+            int allocationSize = Integer.parseInt(System.getProperty(ID_ALLOCATION_SIZE, DEFAULT_ID_ALLOCATION_SIZE));
+            if ("sequence".equalsIgnoreCase(System.getProperty(ID_GENERATION, "identity"))) {
+                sequences = useSequenceIds(metadata, allocationSize);
+            }
+
+            sessionFactory = metadata.buildSessionFactory();
+            alignSequences(sessionFactory, sequences, allocationSize);
+            EntityMetadataRegistry registry = EntityMetadataRegistry.build(sessionFactory);
+            bootTimeMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            LOGGER.info("Session factory built in {} ms.", bootTimeMillis);
+
+            if (Boolean.parseBoolean(System.getProperty(WARM_UP, "false"))) {
+                warmUp(sessionFactory, registry, provider);
+            }
+            connectionProvider = provider;
+            return sessionFactory;
+        } catch (RuntimeException | Error ex) {
+            //stops the Hikari pool the registry started, otherwise every retry leaks one
+            if (sessionFactory != null) {
+                closeQuietly(sessionFactory);
+            }
+            StandardServiceRegistryBuilder.destroy(serviceRegistry);
+            throw ex;
+        }
+    }
+
+    private static void closeQuietly(SessionFactory sessionFactory) {
+        try {
+            sessionFactory.close();
+        } catch (RuntimeException ex) {
+            LOGGER.warn("Session factory could not be closed.", ex);
+        }
+    }
 
-            ServiceRegistry serviceRegistry = new StandardServiceRegistryBuilder()
-                    .applySettings(cfg.getProperties())
-                    .build();
+    /**
+     * Completes once the {@link #INDEX_ACTION} has run, with the names of the indexes that could not be built; empty
+     * when no index action is set.
+     */
+    public CompletableFuture<List<String>> getIndexBuild() {
+        return INDEX_BUILD;
+    }
+
+    /** Wall-clock time of the last session factory bootstrap, {@code -1} until one has finished. */
+    public long getBootTimeMillis() {
+        return bootTimeMillis;
+    }
+
+    public long getWarmUpTimeMillis() {
+        return warmUpTimeMillis;
+    }
+
+    public PoolMetrics getPoolMetrics() {
+        if (connectionProvider == null) {
+            throw new IllegalStateException("Session factory has not been created yet.");
+        }
+        return connectionProvider.getPoolMetrics();
+    }
+
+    public Optional<PlanInspector> getPlanInspector() {
+        if (connectionProvider == null) {
+            throw new IllegalStateException("Session factory has not been created yet.");
+        }
+        return connectionProvider.getPlanInspector();
+    }
+
+    public Optional<SlowQueryLog> getSlowQueryLog() {
+        if (connectionProvider == null) {
+            throw new IllegalStateException("Session factory has not been created yet.");
+        }
+        return connectionProvider.getSlowQueryLog();
+    }
+
+    /** Second-level and query cache hit/miss counts, all zero when {@link #CACHE} is off. */
+    public CacheMetrics getCacheMetrics() {
+        return CacheMetrics.of(getSessionFactory().getStatistics());
+    }
+
+    /** Swaps IDENTITY generators for pooled sequences, returns sequence name per {@code table.idColumn}. */
+    private static Map<String, String> useSequenceIds(Metadata metadata, int allocationSize) {
+        Map<String, String> sequences = new LinkedHashMap<>();
+        for (PersistentClass persistentClass : metadata.getEntityBindings()) {
+            SimpleValue identifier = (SimpleValue) persistentClass.getIdentifier();
+            if (!"identity".equals(identifier.getIdentifierGeneratorStrategy())) {
+                continue;
+            }
+            final String table = persistentClass.getTable().getName();
+            final String idColumn = ((Column) persistentClass.getIdentifierProperty().getColumnIterator().next()).getName();
+            final String sequenceName = table + "_seq";
 
-            sessionFactory = cfg.buildSessionFactory(serviceRegistry);
+            Properties generatorProperties = new Properties();
+            if (identifier.getIdentifierGeneratorProperties() != null) {
+                generatorProperties.putAll(identifier.getIdentifierGeneratorProperties());
+            }
+            generatorProperties.put(SequenceStyleGenerator.SEQUENCE_PARAM, sequenceName);
+            generatorProperties.put(SequenceStyleGenerator.INCREMENT_PARAM, String.valueOf(allocationSize));
+            generatorProperties.put(SequenceStyleGenerator.OPT_PARAM, "pooled");
+            identifier.setIdentifierGeneratorStrategy(SequenceStyleGenerator.class.getName());
+            identifier.setIdentifierGeneratorProperties(generatorProperties);
+
+            sequences.put(table + "." + idColumn, sequenceName);
+            LOGGER.info("Entity {} uses pooled sequence {} with allocation size {}.",
+                    persistentClass.getEntityName(), sequenceName, allocationSize);
+        }
+        return sequences;
+    }
+
+    /** Creates missing sequences and moves them past ids already handed out by the identity columns. */
+    private static void alignSequences(SessionFactory sessionFactory, Map<String, String> sequences, int allocationSize) {
+        if (sequences.isEmpty()) {
+            return;
+        }
+        try (Session session = sessionFactory.openSession()) {
+            TemplateProvider.voidTemplate(session, () -> sequences.forEach((tableAndColumn, sequence) -> {
+                final String[] parts = tableAndColumn.split("\\.");
+                session.createNativeQuery(String.format(
+                        "CREATE SEQUENCE IF NOT EXISTS %s START WITH 1 INCREMENT BY %d", sequence, allocationSize
+                )).executeUpdate();
+                session.createNativeQuery(String.format(
+                        "SELECT setval('%1$s', m.max_id + %2$d, false) " +
+                                "FROM (SELECT COALESCE(MAX(%3$s), 0) AS max_id FROM %4$s) m, %1$s s " +
+                                "WHERE s.last_value < m.max_id + %2$d",
+                        sequence, allocationSize, parts[1], parts[0]
+                )).list();
+            }));
+        }
+    }
+
+    /** Compiles the generic repository HQL into the query plan cache and opens the minimum number of pooled connections. */
+    private static void warmUp(SessionFactory sessionFactory, EntityMetadataRegistry registry,
+                               HikariConnectionProvider connectionProvider) {
+        final long start = System.nanoTime();
+        try (Session session = sessionFactory.openSession()) {
+            for (EntityMetadata<?> metadata : registry.getAll()) {
+                for (String hql : metadata.getGenericHql()) {
+                    session.createQuery(hql);
+                }
+            }
+        }
+        final int connections = connectionProvider.getMinIdle();
+        final List<Connection> borrowed = new ArrayList<>(connections);
+        try {
+            for (int i = 0; i < connections; i++) {
+                borrowed.add(connectionProvider.getConnection());
+            }
+        } catch (SQLException ex) {
+            LOGGER.warn("Connection pool could not be filled during warm-up.", ex);
+        } finally {
+            for (Connection connection : borrowed) {
+                try {
+                    connectionProvider.closeConnection(connection);
+                } catch (SQLException ex) {
+                    LOGGER.warn("Connection could not be returned to the pool.", ex);
+                }
+            }
         }
-        return sessionFactory;
+        warmUpTimeMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        LOGGER.info("Warm-up finished in {} ms, {}.", warmUpTimeMillis, connectionProvider.getPoolMetrics());
     }
 }
@@ -0,0 +1,230 @@
+package pg.hib.providers;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import org.hibernate.HibernateException;
+import org.hibernate.cfg.Environment;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.service.UnknownUnwrapTypeException;
+import org.hibernate.service.spi.Configurable;
+import org.hibernate.service.spi.Stoppable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+public class HikariConnectionProvider implements ConnectionProvider, Configurable, Stoppable {
+
+    public static final String MAX_POOL_SIZE = "pg.hib.pool.max_size";
+    public static final String MIN_IDLE = "pg.hib.pool.min_idle";
+    public static final String MAX_LIFETIME_MS = "pg.hib.pool.max_lifetime_ms";
+    public static final String IDLE_TIMEOUT_MS = "pg.hib.pool.idle_timeout_ms";
+    public static final String CONNECTION_TIMEOUT_MS = "pg.hib.pool.connection_timeout_ms";
+    public static final String VALIDATION_TIMEOUT_MS = "pg.hib.pool.validation_timeout_ms";
+    /** Only needed for drivers without JDBC4 {@code isValid}; pgjdbc validates without a query. */
+    public static final String CONNECTION_TEST_QUERY = "pg.hib.pool.connection_test_query";
+    public static final String LEAK_DETECTION_THRESHOLD_MS = "pg.hib.pool.leak_detection_threshold_ms";
+    /** Connections a running {@code parallelScan} leaves to the other repository calls, {@code 2} by default. */
+    public static final String SCAN_HEADROOM = "pg.hib.pool.scan_headroom";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HikariConnectionProvider.class);
+
+    private final LongAdder acquiredConnections = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Long::max, 0);
+    private final LongAdder connectionTimeouts = new LongAdder();
+    private volatile HikariDataSource dataSource;
+    private volatile PlanInspector planInspector;
+    private volatile SlowQueryLog slowQueryLog;
+    private volatile int scanHeadroom;
+    private volatile ExecutorService scanExecutor;
+
+    @Override
+    public void configure(Map configurationValues) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("hibernate-postgresql");
+        config.setDriverClassName(setting(configurationValues, Environment.DRIVER, "org.postgresql.Driver"));
+        config.setJdbcUrl(setting(configurationValues, Environment.URL, null));
+        config.setUsername(setting(configurationValues, Environment.USER, null));
+        config.setPassword(setting(configurationValues, Environment.PASS, null));
+        config.setMaximumPoolSize(Integer.parseInt(setting(configurationValues, MAX_POOL_SIZE, "10")));
+        config.setMinimumIdle(Integer.parseInt(setting(configurationValues, MIN_IDLE, "2")));
+        config.setMaxLifetime(Long.parseLong(setting(configurationValues, MAX_LIFETIME_MS, "1800000")));
+        config.setIdleTimeout(Long.parseLong(setting(configurationValues, IDLE_TIMEOUT_MS, "600000")));
+        config.setConnectionTimeout(Long.parseLong(setting(configurationValues, CONNECTION_TIMEOUT_MS, "30000")));
+        config.setValidationTimeout(Long.parseLong(setting(configurationValues, VALIDATION_TIMEOUT_MS, "5000")));
+        config.setLeakDetectionThreshold(Long.parseLong(setting(configurationValues, LEAK_DETECTION_THRESHOLD_MS, "0")));
+        final String testQuery = setting(configurationValues, CONNECTION_TEST_QUERY, null);
+        if (testQuery != null) {
+            config.setConnectionTestQuery(testQuery);
+        }
+        //hibernate.connection.provider_disables_autocommit relies on this
+        config.setAutoCommit(false);
+        config.setMetricsTrackerFactory(new WaitTimeTrackerFactory());
+        dataSource = new HikariDataSource(config);
+        scanHeadroom = Integer.parseInt(setting(configurationValues, SCAN_HEADROOM, "2"));
+        if (Boolean.parseBoolean(setting(configurationValues, PlanInspector.ENABLED, "false"))) {
+            planInspector = new PlanInspector(
+                    Double.parseDouble(setting(configurationValues, PlanInspector.COST_THRESHOLD, "1000"))
+            );
+            LOGGER.warn("Query plan inspection is enabled, every distinct SELECT runs once more under EXPLAIN ANALYZE.");
+        }
+        if (Boolean.parseBoolean(setting(configurationValues, SlowQueryLog.ENABLED, "false"))) {
+            slowQueryLog = new SlowQueryLog(
+                    Long.parseLong(setting(configurationValues, SlowQueryLog.THRESHOLD_MS, "200")),
+                    Double.parseDouble(setting(configurationValues, SlowQueryLog.SAMPLE_RATE, "1.0")),
+                    Integer.parseInt(setting(configurationValues, SlowQueryLog.TOP_SIZE, "20"))
+            );
+        }
+        LOGGER.info("Connection pool started with {} to {} connections.", config.getMinimumIdle(), config.getMaximumPoolSize());
+    }
+
+    /** Explicit Hibernate settings win over system properties. */
+    private static String setting(Map<?, ?> configurationValues, String key, String defaultValue) {
+        final Object value = configurationValues.get(key);
+        return value != null ? String.valueOf(value) : System.getProperty(key, defaultValue);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        final Connection pooled = dataSource.getConnection();
+        //innermost, so the EXPLAIN of the plan inspector is not counted against the statement
+        final Connection connection = slowQueryLog == null ? pooled : slowQueryLog.wrap(pooled);
+        //the inspector's own EXPLAIN goes to the pooled connection directly and is not logged as a slow statement
+        return planInspector == null ? connection : planInspector.wrap(connection, pooled);
+    }
+
+    @Override
+    public void closeConnection(Connection conn) throws SQLException {
+        conn.close();
+    }
+
+    @Override
+    public boolean supportsAggressiveRelease() {
+        return false;
+    }
+
+    @Override
+    public boolean isUnwrappableAs(Class unwrapType) {
+        return ConnectionProvider.class.equals(unwrapType)
+                || HikariConnectionProvider.class.isAssignableFrom(unwrapType)
+                || HikariDataSource.class.isAssignableFrom(unwrapType);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(Class<T> unwrapType) {
+        if (ConnectionProvider.class.equals(unwrapType) || HikariConnectionProvider.class.isAssignableFrom(unwrapType)) {
+            return (T) this;
+        } else if (HikariDataSource.class.isAssignableFrom(unwrapType)) {
+            return (T) dataSource;
+        }
+        throw new UnknownUnwrapTypeException(unwrapType);
+    }
+
+    @Override
+    public void stop() {
+        if (scanExecutor != null) {
+            scanExecutor.shutdownNow();
+        }
+        if (dataSource != null) {
+            dataSource.close();
+        }
+    }
+
+    /**
+     * Shared by every {@code parallelScan} on this pool. Each partition holds a connection for its whole scan, so at
+     * most {@link #getScanParallelism()} of them run at once and the rest wait in the executor's queue.
+     */
+    public ExecutorService getParallelScanExecutor() {
+        ExecutorService executor = scanExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                if (scanExecutor == null) {
+                    scanExecutor = RepositoryExecutors.forParallelScans(getScanParallelism());
+                }
+                executor = scanExecutor;
+            }
+        }
+        return executor;
+    }
+
+    public int getScanParallelism() {
+        return Math.max(1, getMaxPoolSize() - scanHeadroom);
+    }
+
+    /** Present when {@link PlanInspector#ENABLED} is set. */
+    public Optional<PlanInspector> getPlanInspector() {
+        return Optional.ofNullable(planInspector);
+    }
+
+    /** Present when {@link SlowQueryLog#ENABLED} is set. */
+    public Optional<SlowQueryLog> getSlowQueryLog() {
+        return Optional.ofNullable(slowQueryLog);
+    }
+
+    public int getMaxPoolSize() {
+        return requireDataSource().getMaximumPoolSize();
+    }
+
+    public int getMinIdle() {
+        return requireDataSource().getMinimumIdle();
+    }
+
+    public PoolMetrics getPoolMetrics() {
+        final HikariPoolMXBean pool = requireDataSource().getHikariPoolMXBean();
+        final long acquired = acquiredConnections.sum();
+        return new PoolMetrics(
+                pool.getActiveConnections(),
+                pool.getIdleConnections(),
+                pool.getTotalConnections(),
+                pool.getThreadsAwaitingConnection(),
+                dataSource.getMaximumPoolSize(),
+                acquired,
+                connectionTimeouts.sum(),
+                acquired == 0 ? 0 : toMillis(totalWaitNanos.sum()) / acquired,
+                toMillis(maxWaitNanos.get())
+        );
+    }
+
+    private HikariDataSource requireDataSource() {
+        if (dataSource == null) {
+            throw new HibernateException("Connection pool is not configured yet.");
+        }
+        return dataSource;
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    private final class WaitTimeTrackerFactory implements MetricsTrackerFactory {
+        @Override
+        public IMetricsTracker create(String poolName, PoolStats poolStats) {
+            return new IMetricsTracker() {
+                @Override
+                public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                    acquiredConnections.increment();
+                    totalWaitNanos.add(elapsedAcquiredNanos);
+                    maxWaitNanos.accumulate(elapsedAcquiredNanos);
+                }
+
+                @Override
+                public void recordConnectionTimeout() {
+                    connectionTimeouts.increment();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package pg.hib.providers;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/** Shared by the JDBC proxies of {@link PlanInspector} and {@link SlowQueryLog}. */
+final class JdbcProxies {
+
+    private JdbcProxies() { }
+
+    /** Calls the wrapped object and rethrows what it threw rather than the reflection wrapper. */
+    static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    /** Outermost repository frame of the current stack, e.g. {@code CarRepository.findAllByFirstRegistrationDateAfter}. */
+    static String repositoryCaller() {
+        String caller = "unknown";
+        for (StackTraceElement frame : new Throwable().getStackTrace()) {
+            if (frame.getClassName().startsWith("pg.hib.dao.") && !frame.getMethodName().startsWith("lambda$")) {
+                final String className = frame.getClassName();
+                caller = className.substring(className.lastIndexOf('.') + 1) + "." + frame.getMethodName();
+            }
+        }
+        return caller;
+    }
+}
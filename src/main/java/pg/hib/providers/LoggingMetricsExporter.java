@@ -0,0 +1,18 @@
+package pg.hib.providers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+public final class LoggingMetricsExporter implements MetricsExporter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoggingMetricsExporter.class);
+
+    @Override
+    public void export(List<OperationSnapshot> snapshots) {
+        snapshots.stream()
+                .filter(snapshot -> snapshot.getCount() > 0)
+                .forEach(snapshot -> LOGGER.info("Repository operation {}", snapshot));
+    }
+}
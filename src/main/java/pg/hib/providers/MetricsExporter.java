@@ -0,0 +1,10 @@
+package pg.hib.providers;
+
+import java.util.List;
+
+/** Receives the operation snapshots periodically, see {@link OperationMetrics#schedule}. */
+@FunctionalInterface
+public interface MetricsExporter {
+
+    void export(List<OperationSnapshot> snapshots);
+}
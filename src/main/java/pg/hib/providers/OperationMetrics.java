@@ -0,0 +1,155 @@
+package pg.hib.providers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency histograms, row, batch and commit figures per repository operation. Repositories open a timer around each
+ * call and the templates report into whatever timer is current on their thread. Switched on with
+ * {@code -Dpg.hib.metrics=true}; when off every timer is the same no-op instance and nothing is looked up.
+ */
+public final class OperationMetrics {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OperationMetrics.class);
+
+    public static final String ENABLED_PROPERTY = "pg.hib.metrics";
+    public static final boolean ENABLED = Boolean.getBoolean(ENABLED_PROPERTY);
+    public static final String JMX_DOMAIN = "pg.hib";
+
+    private static final ThreadLocal<OperationTimer> CURRENT = new ThreadLocal<>();
+    private static final ConcurrentMap<String, OperationStats> STATS = new ConcurrentHashMap<>();
+
+    private OperationMetrics() {}
+
+    /** Starts timing an operation and makes it the current one of this thread until it is closed. */
+    public static OperationTimer start(String repository, String operation) {
+        if (!ENABLED) {
+            return OperationTimer.NOOP;
+        }
+        final OperationTimer timer = new OperationTimer(stats(repository, operation), CURRENT.get(), true);
+        CURRENT.set(timer);
+        return timer;
+    }
+
+    /**
+     * Starts timing an operation that outlives the call, such as a stream consumed later or on another thread.
+     * Templates do not see it, the caller reports rows on the timer itself.
+     */
+    public static OperationTimer startDetached(String repository, String operation) {
+        if (!ENABLED) {
+            return OperationTimer.NOOP;
+        }
+        return new OperationTimer(stats(repository, operation), null, false);
+    }
+
+    public static void recordRows(long count) {
+        if (ENABLED) {
+            final OperationTimer timer = CURRENT.get();
+            if (timer != null) {
+                timer.rows(count);
+            }
+        }
+    }
+
+    public static void recordBatch() {
+        if (ENABLED) {
+            final OperationTimer timer = CURRENT.get();
+            if (timer != null) {
+                timer.batch();
+            }
+        }
+    }
+
+    public static void recordFailure() {
+        if (ENABLED) {
+            final OperationTimer timer = CURRENT.get();
+            if (timer != null) {
+                timer.failed();
+            }
+        }
+    }
+
+    static void recordCommit(long nanos) {
+        final OperationTimer timer = CURRENT.get();
+        if (timer != null) {
+            timer.commit(nanos);
+        }
+    }
+
+    static void unbind(OperationTimer timer) {
+        if (CURRENT.get() == timer) {
+            if (timer.getParent() == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(timer.getParent());
+            }
+        }
+    }
+
+    public static List<OperationSnapshot> snapshot() {
+        final List<OperationSnapshot> snapshots = new ArrayList<>(STATS.size());
+        for (OperationStats stats : STATS.values()) {
+            snapshots.add(stats.snapshot());
+        }
+        return snapshots;
+    }
+
+    public static void reset() {
+        STATS.values().forEach(OperationStats::reset);
+    }
+
+    /** Hands the snapshots to the exporter every period on a shared daemon thread, cancel the future to stop. */
+    public static ScheduledFuture<?> schedule(MetricsExporter exporter, long period, TimeUnit unit) {
+        return ExportScheduler.INSTANCE.scheduleAtFixedRate(() -> {
+            try {
+                exporter.export(snapshot());
+            } catch (RuntimeException ex) {
+                LOGGER.warn("Metrics exporter {} failed.", exporter.getClass().getName(), ex);
+            }
+        }, period, period, unit);
+    }
+
+    private static OperationStats stats(String repository, String operation) {
+        final String key = repository + '.' + operation;
+        final OperationStats existing = STATS.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        return STATS.computeIfAbsent(key, ignored -> register(new OperationStats(repository, operation)));
+    }
+
+    private static OperationStats register(OperationStats stats) {
+        try {
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            final ObjectName name = new ObjectName(String.format("%s:type=RepositoryOperation,repository=%s,operation=%s",
+                    JMX_DOMAIN, ObjectName.quote(stats.getRepository()), ObjectName.quote(stats.getOperation())));
+            if (!server.isRegistered(name)) {
+                server.registerMBean(stats, name);
+            }
+        } catch (JMException ex) {
+            LOGGER.warn("Could not register {}.{} over JMX.", stats.getRepository(), stats.getOperation(), ex);
+        }
+        return stats;
+    }
+
+    private static final class ExportScheduler {
+        private static final ScheduledExecutorService INSTANCE = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "repository-metrics-exporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,77 @@
+package pg.hib.providers;
+
+import org.HdrHistogram.Histogram;
+
+/** Point-in-time copy of {@link OperationStats}, latencies in microseconds. */
+public final class OperationSnapshot {
+
+    private final String repository;
+    private final String operation;
+    private final Histogram latency;
+    private final Histogram commit;
+    private final long errors;
+    private final long rows;
+    private final long batches;
+
+    OperationSnapshot(String repository, String operation, Histogram latency, Histogram commit,
+                      long errors, long rows, long batches) {
+        this.repository = repository;
+        this.operation = operation;
+        this.latency = latency;
+        this.commit = commit;
+        this.errors = errors;
+        this.rows = rows;
+        this.batches = batches;
+    }
+
+    public String getRepository() {
+        return repository;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public long getCount() {
+        return latency.getTotalCount();
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getBatches() {
+        return batches;
+    }
+
+    public long getLatencyAtPercentile(double percentile) {
+        return latency.getValueAtPercentile(percentile);
+    }
+
+    public long getMaxLatency() {
+        return latency.getMaxValue();
+    }
+
+    public long getCommitLatencyAtPercentile(double percentile) {
+        return commit.getValueAtPercentile(percentile);
+    }
+
+    /** The latency histogram itself, for exporters that ship the whole distribution. */
+    public Histogram getLatencyHistogram() {
+        return latency;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "%s.%s count=%d errors=%d rows=%d batches=%d p50=%dus p99=%dus p999=%dus max=%dus commitP99=%dus",
+                repository, operation, getCount(), errors, rows, batches, getLatencyAtPercentile(50),
+                getLatencyAtPercentile(99), getLatencyAtPercentile(99.9), getMaxLatency(),
+                getCommitLatencyAtPercentile(99)
+        );
+    }
+}
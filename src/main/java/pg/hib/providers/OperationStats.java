@@ -0,0 +1,113 @@
+package pg.hib.providers;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/** Latency and commit histograms in microseconds plus counters of one operation of one repository. */
+public final class OperationStats implements OperationStatsMBean {
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    private final String repository;
+    private final String operation;
+    private final Histogram latency = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+    private final Histogram commit = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    OperationStats(String repository, String operation) {
+        this.repository = repository;
+        this.operation = operation;
+    }
+
+    void record(long elapsedNanos, long rowCount, long batchCount, long commitNanos, boolean failed) {
+        latency.recordValue(TimeUnit.NANOSECONDS.toMicros(elapsedNanos));
+        if (commitNanos > 0) {
+            commit.recordValue(TimeUnit.NANOSECONDS.toMicros(commitNanos));
+        }
+        if (failed) {
+            errors.increment();
+        }
+        rows.add(rowCount);
+        batches.add(batchCount);
+    }
+
+    public OperationSnapshot snapshot() {
+        return new OperationSnapshot(repository, operation, latency.copy(), commit.copy(),
+                errors.sum(), rows.sum(), batches.sum());
+    }
+
+    @Override
+    public String getRepository() {
+        return repository;
+    }
+
+    @Override
+    public String getOperation() {
+        return operation;
+    }
+
+    @Override
+    public long getCount() {
+        return latency.getTotalCount();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public long getRows() {
+        return rows.sum();
+    }
+
+    @Override
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    @Override
+    public double getMeanMillis() {
+        return latency.getMean() / MICROS_PER_MILLI;
+    }
+
+    @Override
+    public double getP50Millis() {
+        return latency.getValueAtPercentile(50) / MICROS_PER_MILLI;
+    }
+
+    @Override
+    public double getP99Millis() {
+        return latency.getValueAtPercentile(99) / MICROS_PER_MILLI;
+    }
+
+    @Override
+    public double getP999Millis() {
+        return latency.getValueAtPercentile(99.9) / MICROS_PER_MILLI;
+    }
+
+    @Override
+    public double getMaxMillis() {
+        return latency.getMaxValue() / MICROS_PER_MILLI;
+    }
+
+    @Override
+    public double getCommitP99Millis() {
+        return commit.getValueAtPercentile(99) / MICROS_PER_MILLI;
+    }
+
+    @Override
+    public void reset() {
+        latency.reset();
+        commit.reset();
+        errors.reset();
+        rows.reset();
+        batches.reset();
+    }
+}
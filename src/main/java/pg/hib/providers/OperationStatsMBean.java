@@ -0,0 +1,31 @@
+package pg.hib.providers;
+
+/** JMX view of one repository operation, registered as {@code pg.hib:type=RepositoryOperation,...}. */
+public interface OperationStatsMBean {
+
+    String getRepository();
+
+    String getOperation();
+
+    long getCount();
+
+    long getErrors();
+
+    long getRows();
+
+    long getBatches();
+
+    double getMeanMillis();
+
+    double getP50Millis();
+
+    double getP99Millis();
+
+    double getP999Millis();
+
+    double getMaxMillis();
+
+    double getCommitP99Millis();
+
+    void reset();
+}
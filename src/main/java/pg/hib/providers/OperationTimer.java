@@ -0,0 +1,68 @@
+package pg.hib.providers;
+
+/**
+ * Times one repository operation. Rows, batches and commit time recorded while it is the current timer of its thread
+ * are attributed to it; {@link #close()} records the elapsed time and hands the thread back to the enclosing timer.
+ * The shared no-op instance ignores everything, so it is safe to report into from any thread.
+ */
+public class OperationTimer implements AutoCloseable {
+
+    static final OperationTimer NOOP = new OperationTimer(null, null, false);
+
+    private final OperationStats stats;
+    private final OperationTimer parent;
+    private final boolean bound;
+    private final long start;
+    private long rows;
+    private long batches;
+    private long commitNanos;
+    private boolean failed;
+    private boolean closed;
+
+    OperationTimer(OperationStats stats, OperationTimer parent, boolean bound) {
+        this.stats = stats;
+        this.parent = parent;
+        this.bound = bound;
+        this.start = stats == null ? 0 : System.nanoTime();
+    }
+
+    OperationTimer getParent() {
+        return parent;
+    }
+
+    public void rows(long count) {
+        if (stats != null) {
+            rows += count;
+        }
+    }
+
+    public void batch() {
+        if (stats != null) {
+            batches++;
+        }
+    }
+
+    void commit(long nanos) {
+        if (stats != null) {
+            commitNanos += nanos;
+        }
+    }
+
+    public void failed() {
+        if (stats != null) {
+            failed = true;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (stats == null || closed) {
+            return;
+        }
+        closed = true;
+        stats.record(System.nanoTime() - start, rows, batches, commitNanos, failed);
+        if (bound) {
+            OperationMetrics.unbind(this);
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package pg.hib.providers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Dev/test aid: the first time a SELECT is executed it is run again as {@code EXPLAIN (ANALYZE, BUFFERS, FORMAT JSON)}
+ * with the same parameters, and plans with sequential scans or a total cost above the threshold are reported. The
+ * query really runs twice, so this is not meant for production.
+ */
+public final class PlanInspector {
+
+    /** {@code true} wraps pooled connections so their queries are explained. */
+    public static final String ENABLED = "pg.hib.explain";
+    public static final String COST_THRESHOLD = "pg.hib.explain.cost_threshold";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PlanInspector.class);
+    private static final String EXPLAIN_PREFIX = "EXPLAIN (ANALYZE, BUFFERS, FORMAT JSON) ";
+
+    private final double costThreshold;
+    private final Set<String> inspected = ConcurrentHashMap.newKeySet();
+    private final List<PlanFinding> findings = new CopyOnWriteArrayList<>();
+
+    PlanInspector(double costThreshold) {
+        this.costThreshold = costThreshold;
+    }
+
+    /** Plans flagged so far, one per distinct SQL. */
+    public List<PlanFinding> getFindings() {
+        return Collections.unmodifiableList(findings);
+    }
+
+    /** EXPLAINs run on {@code explainConnection}, the same physical connection without other wrappers. */
+    Connection wrap(Connection connection, Connection explainConnection) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                new ConnectionHandler(connection, explainConnection)
+        );
+    }
+
+    private void inspect(Connection connection, String sql, Map<Integer, Binding> bindings) {
+        if (!inspected.add(sql)) {
+            return;
+        }
+        final String caller = JdbcProxies.repositoryCaller();
+        Savepoint savepoint = null;
+        try {
+            //a failing EXPLAIN must not abort the caller's transaction
+            savepoint = connection.getAutoCommit() ? null : connection.setSavepoint();
+            try (PreparedStatement explain = connection.prepareStatement(EXPLAIN_PREFIX + sql)) {
+                for (Binding binding : bindings.values()) {
+                    binding.method.invoke(explain, binding.args);
+                }
+                try (ResultSet result = explain.executeQuery()) {
+                    if (result.next()) {
+                        report(PlanFinding.parse(caller, sql, result.getString(1), costThreshold));
+                    }
+                }
+            }
+            if (savepoint != null) {
+                connection.releaseSavepoint(savepoint);
+            }
+        } catch (SQLException | IllegalAccessException | InvocationTargetException ex) {
+            LOGGER.debug("Plan of {} could not be inspected.", sql, ex);
+            if (savepoint != null) {
+                try {
+                    connection.rollback(savepoint);
+                } catch (SQLException rollbackEx) {
+                    LOGGER.debug("Rollback to savepoint failed.", rollbackEx);
+                }
+            }
+        }
+    }
+
+    private void report(PlanFinding finding) {
+        if (finding.isFlagged()) {
+            findings.add(finding);
+            LOGGER.warn("Query plan flagged: {}", finding);
+        } else {
+            LOGGER.debug("Query plan ok: {}", finding);
+        }
+    }
+
+    private static boolean isSelect(String sql) {
+        final String trimmed = sql.trim().toLowerCase(Locale.ROOT);
+        return trimmed.startsWith("select") || trimmed.startsWith("with");
+    }
+
+    private static final class Binding {
+        private final Method method;
+        private final Object[] args;
+
+        private Binding(Method method, Object[] args) {
+            this.method = method;
+            this.args = args;
+        }
+    }
+
+    private final class ConnectionHandler implements InvocationHandler {
+
+        private final Connection connection;
+        private final Connection explainConnection;
+
+        private ConnectionHandler(Connection connection, Connection explainConnection) {
+            this.connection = connection;
+            this.explainConnection = explainConnection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            final Object result = JdbcProxies.invoke(connection, method, args);
+            if ("prepareStatement".equals(method.getName()) && args != null && args[0] instanceof String && isSelect((String) args[0])) {
+                return Proxy.newProxyInstance(
+                        PreparedStatement.class.getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                        new StatementHandler(explainConnection, (PreparedStatement) result, (String) args[0])
+                );
+            }
+            return result;
+        }
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+
+        private final Connection connection;
+        private final PreparedStatement statement;
+        private final String sql;
+        private final Map<Integer, Binding> bindings = new TreeMap<>();
+
+        private StatementHandler(Connection connection, PreparedStatement statement, String sql) {
+            this.connection = connection;
+            this.statement = statement;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            final String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                bindings.put((Integer) args[0], new Binding(method, args));
+            } else if ("clearParameters".equals(name)) {
+                bindings.clear();
+            } else if (("executeQuery".equals(name) || "execute".equals(name)) && (args == null || args.length == 0)) {
+                inspect(connection, sql, bindings);
+            }
+            return JdbcProxies.invoke(statement, method, args);
+        }
+    }
+
+    public static final class PlanFinding {
+
+        private final String repositoryMethod;
+        private final String sql;
+        private final double totalCost;
+        private final double executionMillis;
+        private final List<String> sequentialScans;
+        private final boolean costExceeded;
+
+        private PlanFinding(String repositoryMethod, String sql, double totalCost, double executionMillis,
+                            List<String> sequentialScans, boolean costExceeded) {
+            this.repositoryMethod = repositoryMethod;
+            this.sql = sql;
+            this.totalCost = totalCost;
+            this.executionMillis = executionMillis;
+            this.sequentialScans = Collections.unmodifiableList(sequentialScans);
+            this.costExceeded = costExceeded;
+        }
+
+        /** Reads the root cost, execution time and sequentially scanned relations out of a JSON plan. */
+        static PlanFinding parse(String repositoryMethod, String sql, String jsonPlan, double costThreshold) {
+            final double totalCost = firstNumber(jsonPlan, "\"Total Cost\":");
+            final double executionMillis = firstNumber(jsonPlan, "\"Execution Time\":");
+            final List<String> sequentialScans = new ArrayList<>();
+            int from = 0;
+            while ((from = jsonPlan.indexOf("\"Node Type\": \"Seq Scan\"", from)) >= 0) {
+                final int relation = jsonPlan.indexOf("\"Relation Name\": \"", from);
+                final int nodeEnd = jsonPlan.indexOf('}', from);
+                if (relation >= 0 && (nodeEnd < 0 || relation < nodeEnd)) {
+                    final int start = relation + "\"Relation Name\": \"".length();
+                    sequentialScans.add(jsonPlan.substring(start, jsonPlan.indexOf('"', start)));
+                }
+                from++;
+            }
+            return new PlanFinding(repositoryMethod, sql, totalCost, executionMillis, sequentialScans,
+                    totalCost > costThreshold);
+        }
+
+        private static double firstNumber(String json, String key) {
+            final int at = json.indexOf(key);
+            if (at < 0) {
+                return -1;
+            }
+            int start = at + key.length();
+            while (start < json.length() && json.charAt(start) == ' ') {
+                start++;
+            }
+            int end = start;
+            while (end < json.length() && (Character.isDigit(json.charAt(end)) || json.charAt(end) == '.')) {
+                end++;
+            }
+            return end > start ? Double.parseDouble(json.substring(start, end)) : -1;
+        }
+
+        public boolean isFlagged() {
+            return costExceeded || !sequentialScans.isEmpty();
+        }
+
+        public String getRepositoryMethod() {
+            return repositoryMethod;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public double getTotalCost() {
+            return totalCost;
+        }
+
+        public double getExecutionMillis() {
+            return executionMillis;
+        }
+
+        /** Relations read with a Seq Scan node. */
+        public List<String> getSequentialScans() {
+            return sequentialScans;
+        }
+
+        public boolean isCostExceeded() {
+            return costExceeded;
+        }
+
+        @Override
+        public String toString() {
+            return "PlanFinding{" +
+                    "method=" + repositoryMethod +
+                    ", totalCost=" + totalCost +
+                    ", executionMs=" + executionMillis +
+                    ", seqScans=" + sequentialScans +
+                    ", costExceeded=" + costExceeded +
+                    ", sql='" + sql + '\'' +
+                    '}';
+        }
+    }
+}
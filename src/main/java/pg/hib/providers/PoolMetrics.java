@@ -0,0 +1,79 @@
+package pg.hib.providers;
+
+public final class PoolMetrics {
+
+    private final int activeConnections;
+    private final int idleConnections;
+    private final int totalConnections;
+    private final int threadsAwaitingConnection;
+    private final int maxPoolSize;
+    private final long acquiredConnections;
+    private final long connectionTimeouts;
+    private final double averageWaitMillis;
+    private final double maxWaitMillis;
+
+    PoolMetrics(int activeConnections, int idleConnections, int totalConnections, int threadsAwaitingConnection,
+                int maxPoolSize, long acquiredConnections, long connectionTimeouts, double averageWaitMillis,
+                double maxWaitMillis) {
+        this.activeConnections = activeConnections;
+        this.idleConnections = idleConnections;
+        this.totalConnections = totalConnections;
+        this.threadsAwaitingConnection = threadsAwaitingConnection;
+        this.maxPoolSize = maxPoolSize;
+        this.acquiredConnections = acquiredConnections;
+        this.connectionTimeouts = connectionTimeouts;
+        this.averageWaitMillis = averageWaitMillis;
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    public int getActiveConnections() {
+        return activeConnections;
+    }
+
+    public int getIdleConnections() {
+        return idleConnections;
+    }
+
+    public int getTotalConnections() {
+        return totalConnections;
+    }
+
+    public int getThreadsAwaitingConnection() {
+        return threadsAwaitingConnection;
+    }
+
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    public long getAcquiredConnections() {
+        return acquiredConnections;
+    }
+
+    public long getConnectionTimeouts() {
+        return connectionTimeouts;
+    }
+
+    public double getAverageWaitMillis() {
+        return averageWaitMillis;
+    }
+
+    public double getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "PoolMetrics{" +
+                "active=" + activeConnections +
+                ", idle=" + idleConnections +
+                ", total=" + totalConnections +
+                ", awaiting=" + threadsAwaitingConnection +
+                ", maxPoolSize=" + maxPoolSize +
+                ", acquired=" + acquiredConnections +
+                ", timeouts=" + connectionTimeouts +
+                ", avgWaitMs=" + String.format("%.3f", averageWaitMillis) +
+                ", maxWaitMs=" + String.format("%.3f", maxWaitMillis) +
+                '}';
+    }
+}
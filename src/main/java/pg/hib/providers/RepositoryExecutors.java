@@ -0,0 +1,163 @@
+package pg.hib.providers;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors for {@code AsyncBasicCRUD}. Each one runs at most as many operations as the pool has connections, so
+ * waiting happens in a bounded queue instead of in Hikari, and rejects new work once that queue is full.
+ */
+public final class RepositoryExecutors {
+
+    /** Operations allowed to wait for a free thread, defaults to four per pooled connection. */
+    public static final String QUEUE_CAPACITY = "pg.hib.async.queue_capacity";
+
+    private static final int DEFAULT_QUEUE_PER_CONNECTION = 4;
+
+    private RepositoryExecutors() { }
+
+    /** Platform threads, one per pooled connection of the session factory's pool. */
+    public static ExecutorService forConnectionPool(HibernateSessionProvider provider) {
+        final int poolSize = provider.getPoolMetrics().getMaxPoolSize();
+        return bounded(poolSize, queueCapacity(poolSize));
+    }
+
+    public static ExecutorService bounded(int threads, int queueCapacity) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new RepositoryThreadFactory("repository-async-"),
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /** Partitions of a scan are never rejected; the caller chose their number, so the queue is left unbounded. */
+    static ExecutorService forParallelScans(int threads) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new RepositoryThreadFactory("parallel-scan-")
+        );
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /** One virtual thread per operation on JDK 21+, empty on older runtimes. */
+    public static Optional<ExecutorService> virtualThreads(HibernateSessionProvider provider) {
+        final int poolSize = provider.getPoolMetrics().getMaxPoolSize();
+        return virtualThreads(poolSize, queueCapacity(poolSize));
+    }
+
+    public static Optional<ExecutorService> virtualThreads(int concurrency, int queueCapacity) {
+        try {
+            final ExecutorService virtual = (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+            return Optional.of(new BoundedExecutor(virtual, concurrency, queueCapacity));
+        } catch (NoSuchMethodException ex) {
+            return Optional.empty();
+        } catch (IllegalAccessException | InvocationTargetException ex) {
+            throw new IllegalStateException("Virtual thread executor could not be created.", ex);
+        }
+    }
+
+    private static int queueCapacity(int poolSize) {
+        return Integer.parseInt(System.getProperty(
+                QUEUE_CAPACITY, String.valueOf(poolSize * DEFAULT_QUEUE_PER_CONNECTION)
+        ));
+    }
+
+    private static final class RepositoryThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger counter = new AtomicInteger();
+        private final String prefix;
+
+        private RepositoryThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    /** Virtual threads are never pooled, so the same limits are enforced with permits instead. */
+    private static final class BoundedExecutor extends AbstractExecutorService {
+
+        private final ExecutorService delegate;
+        private final Semaphore running;
+        private final Semaphore admitted;
+
+        BoundedExecutor(ExecutorService delegate, int concurrency, int queueCapacity) {
+            this.delegate = delegate;
+            this.running = new Semaphore(concurrency);
+            this.admitted = new Semaphore(concurrency + queueCapacity);
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            if (!admitted.tryAcquire()) {
+                throw new RejectedExecutionException("Repository executor is saturated.");
+            }
+            try {
+                delegate.execute(() -> {
+                    try {
+                        running.acquireUninterruptibly();
+                        try {
+                            command.run();
+                        } finally {
+                            running.release();
+                        }
+                    } finally {
+                        admitted.release();
+                    }
+                });
+            } catch (RejectedExecutionException ex) {
+                admitted.release();
+                throw ex;
+            }
+        }
+
+        @Override
+        public void shutdown() {
+            delegate.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return delegate.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return delegate.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
+        }
+    }
+}
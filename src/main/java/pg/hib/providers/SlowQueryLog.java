@@ -0,0 +1,338 @@
+package pg.hib.providers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Times statements on pooled connections and logs those slower than the threshold, one line per statement with its
+ * normalized shape, bind count, row count and caller. The logger of this class goes through an async appender in
+ * logback.xml. The slowest shapes are kept in a bounded list that can be read at runtime.
+ * Elapsed time is the time spent in {@code execute*}; pgjdbc reads the whole result there unless a fetch size is set.
+ * Only the result sets of statements already above the threshold are wrapped to count their rows; such a query is
+ * logged when its result set is closed.
+ */
+public final class SlowQueryLog {
+
+    /** {@code true} wraps pooled connections, off by default. */
+    public static final String ENABLED = "pg.hib.slow_query";
+    public static final String THRESHOLD_MS = "pg.hib.slow_query.threshold_ms";
+    /** Fraction of connection checkouts whose statements are timed, {@code 1.0} by default. */
+    public static final String SAMPLE_RATE = "pg.hib.slow_query.sample_rate";
+    /** Number of distinct statement shapes kept in {@link #getSlowestStatements()}. */
+    public static final String TOP_SIZE = "pg.hib.slow_query.top_size";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SlowQueryLog.class);
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bin\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final long thresholdNanos;
+    private final double sampleRate;
+    private final int topSize;
+    private final Map<String, SlowStatement> slowest = new HashMap<>();
+
+    SlowQueryLog(long thresholdMillis, double sampleRate, int topSize) {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.sampleRate = sampleRate;
+        this.topSize = topSize;
+    }
+
+    /** Slowest statement shapes seen so far, slowest first. */
+    public synchronized List<SlowStatement> getSlowestStatements() {
+        final List<SlowStatement> statements = new ArrayList<>(slowest.values());
+        statements.sort(Comparator.comparingLong(SlowStatement::getMaxNanos).reversed());
+        return statements;
+    }
+
+    /** Connections left out by the sample rate are returned as they are. */
+    Connection wrap(Connection connection) {
+        if (!sampled()) {
+            return connection;
+        }
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                new ConnectionHandler(connection)
+        );
+    }
+
+    /** Literals become {@code ?}, IN lists of any length become {@code in (?...)} and whitespace is collapsed. */
+    static String normalize(String sql) {
+        String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = IN_LIST.matcher(shape).replaceAll("in (?...)");
+        return WHITESPACE.matcher(shape).replaceAll(" ").trim();
+    }
+
+    private void record(Execution execution) {
+        final String shape = normalize(execution.sql);
+        final String caller = JdbcProxies.repositoryCaller();
+        LOGGER.warn("Slow statement elapsedMs={} rows={} binds={} caller={} sql={}",
+                toMillis(execution.elapsedNanos), execution.rows, execution.binds, caller, shape);
+        synchronized (this) {
+            final SlowStatement previous = slowest.get(shape);
+            if (previous != null) {
+                slowest.put(shape, previous.plus(execution, caller));
+            } else if (slowest.size() < topSize) {
+                slowest.put(shape, new SlowStatement(shape, caller, 1, execution.elapsedNanos, execution.elapsedNanos,
+                        execution.rows, execution.binds));
+            } else {
+                final SlowStatement fastest = slowest.values().stream()
+                        .min(Comparator.comparingLong(SlowStatement::getMaxNanos))
+                        .orElseThrow(IllegalStateException::new);
+                if (fastest.maxNanos < execution.elapsedNanos) {
+                    slowest.remove(fastest.shape);
+                    slowest.put(shape, new SlowStatement(shape, caller, 1, execution.elapsedNanos,
+                            execution.elapsedNanos, execution.rows, execution.binds));
+                }
+            }
+        }
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    private boolean sampled() {
+        return sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    /** Update count of an {@code execute*} result, {@code -1} when it returned a result set that was not read. */
+    private static long rows(Object result) {
+        if (result instanceof Number) {
+            return ((Number) result).longValue();
+        }
+        long rows = 0;
+        if (result instanceof int[]) {
+            for (int count : (int[]) result) {
+                rows += Math.max(count, 0);
+            }
+        } else if (result instanceof long[]) {
+            for (long count : (long[]) result) {
+                rows += Math.max(count, 0);
+            }
+        } else {
+            return -1;
+        }
+        return rows;
+    }
+
+    private static final class Execution {
+        private final String sql;
+        private final int binds;
+        private final long elapsedNanos;
+        private final long rows;
+
+        private Execution(String sql, int binds, long elapsedNanos, long rows) {
+            this.sql = sql;
+            this.binds = binds;
+            this.elapsedNanos = elapsedNanos;
+            this.rows = rows;
+        }
+    }
+
+    private final class ConnectionHandler implements InvocationHandler {
+
+        private final Connection connection;
+
+        private ConnectionHandler(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            final Object result = JdbcProxies.invoke(connection, method, args);
+            final Class<?> type = method.getReturnType();
+            if (result instanceof Statement && Statement.class.isAssignableFrom(type) && type.isInterface()) {
+                final String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+                return Proxy.newProxyInstance(
+                        type.getClassLoader(), new Class<?>[]{type}, new StatementHandler((Statement) result, sql)
+                );
+            }
+            return result;
+        }
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+
+        private final Statement statement;
+        private final String preparedSql;
+        private int binds;
+        //slow execute() whose result set has not been asked for yet
+        private Execution pending;
+
+        private StatementHandler(Statement statement, String preparedSql) {
+            this.statement = statement;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            final String name = method.getName();
+            if (name.startsWith("execute")) {
+                return execute(method, args);
+            }
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                binds++;
+            }
+            final Object result = JdbcProxies.invoke(statement, method, args);
+            if (pending != null && "getResultSet".equals(name) && result instanceof ResultSet) {
+                final Execution execution = pending;
+                pending = null;
+                return countRows((ResultSet) result, execution);
+            }
+            if (pending != null && ("close".equals(name) || "getMoreResults".equals(name))) {
+                record(pending);
+                pending = null;
+            }
+            return result;
+        }
+
+        private Object execute(Method method, Object[] args) throws Throwable {
+            //plain statements get their SQL with the execute call
+            final String sql = preparedSql == null && args != null && args[0] instanceof String
+                    ? (String) args[0] : preparedSql;
+            final int executionBinds = binds;
+            binds = 0;
+            final long start = System.nanoTime();
+            final Object result = JdbcProxies.invoke(statement, method, args);
+            final long elapsedNanos = System.nanoTime() - start;
+            if (elapsedNanos < thresholdNanos || sql == null) {
+                return result;
+            }
+            final Execution execution = new Execution(sql, executionBinds, elapsedNanos, rows(result));
+            if (result instanceof ResultSet) {
+                return countRows((ResultSet) result, execution);
+            }
+            if (Boolean.TRUE.equals(result)) {
+                pending = execution;
+            } else {
+                record(execution);
+            }
+            return result;
+        }
+    }
+
+    private ResultSet countRows(ResultSet resultSet, Execution execution) {
+        return (ResultSet) Proxy.newProxyInstance(
+                ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                new ResultSetHandler(resultSet, execution)
+        );
+    }
+
+    /** Counts the rows read and records the execution once, when the result set is closed. */
+    private final class ResultSetHandler implements InvocationHandler {
+
+        private final ResultSet resultSet;
+        private final Execution execution;
+        private long rows;
+        private boolean recorded;
+
+        private ResultSetHandler(ResultSet resultSet, Execution execution) {
+            this.resultSet = resultSet;
+            this.execution = execution;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            final Object result = JdbcProxies.invoke(resultSet, method, args);
+            final String name = method.getName();
+            if ("next".equals(name) && Boolean.TRUE.equals(result)) {
+                rows++;
+            } else if ("close".equals(name) && !recorded) {
+                recorded = true;
+                record(new Execution(execution.sql, execution.binds, execution.elapsedNanos, rows));
+            }
+            return result;
+        }
+    }
+
+    public static final class SlowStatement {
+
+        private final String shape;
+        private final String lastCaller;
+        private final long count;
+        private final long maxNanos;
+        private final long totalNanos;
+        private final long lastRows;
+        private final int lastBinds;
+
+        private SlowStatement(String shape, String lastCaller, long count, long maxNanos, long totalNanos,
+                              long lastRows, int lastBinds) {
+            this.shape = shape;
+            this.lastCaller = lastCaller;
+            this.count = count;
+            this.maxNanos = maxNanos;
+            this.totalNanos = totalNanos;
+            this.lastRows = lastRows;
+            this.lastBinds = lastBinds;
+        }
+
+        private SlowStatement plus(Execution execution, String caller) {
+            return new SlowStatement(shape, caller, count + 1, Math.max(maxNanos, execution.elapsedNanos),
+                    totalNanos + execution.elapsedNanos, execution.rows, execution.binds);
+        }
+
+        public String getShape() {
+            return shape;
+        }
+
+        public String getLastCaller() {
+            return lastCaller;
+        }
+
+        /** Executions above the threshold. */
+        public long getCount() {
+            return count;
+        }
+
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+
+        public double getMaxMillis() {
+            return toMillis(maxNanos);
+        }
+
+        public double getMeanMillis() {
+            return toMillis(totalNanos / count);
+        }
+
+        /** Rows read from a query's result set or the update count; {@code -1} when a result was never read. */
+        public long getLastRows() {
+            return lastRows;
+        }
+
+        public int getLastBinds() {
+            return lastBinds;
+        }
+
+        @Override
+        public String toString() {
+            return "SlowStatement{" +
+                    "count=" + count +
+                    ", maxMs=" + String.format("%.1f", getMaxMillis()) +
+                    ", meanMs=" + String.format("%.1f", getMeanMillis()) +
+                    ", lastRows=" + lastRows +
+                    ", lastBinds=" + lastBinds +
+                    ", caller=" + lastCaller +
+                    ", sql='" + shape + '\'' +
+                    '}';
+        }
+    }
+}
@@ -1,14 +1,23 @@
 package pg.hib.providers;
 
+import org.hibernate.FlushMode;
 import org.hibernate.HibernateException;
+import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
+import org.hibernate.StatelessSession;
 import org.hibernate.Transaction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Collection;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public final class TemplateProvider {
 
@@ -18,14 +27,19 @@ public final class TemplateProvider {
 
     public static <T> Optional<T> singleObjectTemplate(Session openedSession, Callable<? extends T> operation, Class<T> clazz) {
         Object tmpResult;
-        Transaction transaction = openedSession.beginTransaction();
+        Transaction transaction = openedSession.getTransaction();
+        final boolean owner = beginOrJoin(transaction);
         try {
             tmpResult = operation.call();
         } catch (Exception ex) {
             LOGGER.error("Something went wrong", ex);
+            OperationMetrics.recordFailure();
+            markRollbackOnlyIfJoined(transaction, owner);
             throw new HibernateException(ex);
         } finally {
-            transaction.commit();
+            if (owner) {
+                commit(transaction);
+            }
         }
         if (tmpResult != null) {
             if (clazz.isInstance(tmpResult)) {
@@ -40,26 +54,175 @@ public final class TemplateProvider {
     }
 
     public static <T, C extends Collection<T>> C collectionTemplate(Session openedSession, Callable<C> operation) {
-        Transaction transaction = openedSession.beginTransaction();
+        Transaction transaction = openedSession.getTransaction();
+        final boolean owner = beginOrJoin(transaction);
         try {
-            return operation.call();
+            final C result = operation.call();
+            if (result != null) {
+                OperationMetrics.recordRows(result.size());
+            }
+            return result;
         } catch (Exception ex) {
             LOGGER.error("Something went wrong", ex);
+            OperationMetrics.recordFailure();
+            markRollbackOnlyIfJoined(transaction, owner);
             throw new HibernateException(ex);
         } finally {
-            transaction.commit();
+            if (owner) {
+                commit(transaction);
+            }
         }
     }
 
-    public static void voidTemplate(Session openedSession, Runnable operation) {
+    public static <T> Optional<T> readOnlySingleObjectTemplate(
+            Session openedSession, Callable<? extends T> operation, Class<T> clazz
+    ) {
+        if (openedSession.getTransaction().isActive()) {
+            //the session is shared with the writes of a unit of work
+            return singleObjectTemplate(openedSession, operation, clazz);
+        }
+        prepareReadOnly(openedSession);
+        return singleObjectTemplate(openedSession, operation, clazz);
+    }
+
+    /**
+     * Runs in a read-only transaction: entities are loaded without dirty-checking snapshots, nothing is flushed on
+     * commit and the JDBC connection is marked read-only. Inside a unit of work it joins the running transaction as is.
+     */
+    public static <T, C extends Collection<T>> C readOnlyCollectionTemplate(Session openedSession, Callable<C> operation) {
+        if (openedSession.getTransaction().isActive()) {
+            return collectionTemplate(openedSession, operation);
+        }
+        prepareReadOnly(openedSession);
+        return collectionTemplate(openedSession, operation);
+    }
+
+    private static void prepareReadOnly(Session openedSession) {
+        openedSession.setDefaultReadOnly(true);
+        openedSession.setHibernateFlushMode(FlushMode.MANUAL);
+        //has to happen before the transaction starts; HikariCP resets the flag when the connection is returned
+        openedSession.doWork(connection -> connection.setReadOnly(true));
+    }
+
+    /** Commits only when the operation succeeds; a failed bulk write is rolled back as a whole. */
+    public static <T> T statelessTemplate(StatelessSession openedSession, Callable<T> operation) {
         Transaction transaction = openedSession.beginTransaction();
+        final T result;
+        try {
+            result = operation.call();
+        } catch (Exception ex) {
+            LOGGER.error("Something went wrong", ex);
+            OperationMetrics.recordFailure();
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+            throw new HibernateException(ex);
+        }
+        commit(transaction);
+        if (result instanceof Number) {
+            OperationMetrics.recordRows(((Number) result).longValue());
+        }
+        return result;
+    }
+
+    public static void voidTemplate(Session openedSession, Runnable operation) {
+        Transaction transaction = openedSession.getTransaction();
+        final boolean owner = beginOrJoin(transaction);
         try {
             operation.run();
         } catch (Exception ex) {
             LOGGER.error("Something went wrong", ex);
+            OperationMetrics.recordFailure();
+            markRollbackOnlyIfJoined(transaction, owner);
             throw new HibernateException(ex.getMessage());
         } finally {
+            if (owner) {
+                commit(transaction);
+            }
+        }
+    }
+
+    private static void commit(Transaction transaction) {
+        if (!OperationMetrics.ENABLED) {
+            transaction.commit();
+            return;
+        }
+        final long start = System.nanoTime();
+        try {
             transaction.commit();
+        } finally {
+            OperationMetrics.recordCommit(System.nanoTime() - start);
+        }
+    }
+
+    /** Begins the transaction unless a unit of work already did, returns whether the caller owns it. */
+    private static boolean beginOrJoin(Transaction transaction) {
+        if (transaction.isActive()) {
+            return false;
+        }
+        transaction.begin();
+        return true;
+    }
+
+    private static void markRollbackOnlyIfJoined(Transaction transaction, boolean owner) {
+        if (!owner && transaction.isActive()) {
+            transaction.markRollbackOnly();
+        }
+    }
+
+    /**
+     * Takes ownership of the opened session. Transaction and session stay open until the returned stream is closed,
+     * and the persistence context is cleared every {@code clearEvery} rows so memory does not grow with the result.
+     * Inside a unit of work the stream reads through its session and transaction and leaves the context alone.
+     */
+    public static <T> Stream<T> streamTemplate(
+            Session openedSession, Callable<ScrollableResults> operation, Function<Object[], T> rowMapper, int clearEvery
+    ) {
+        Transaction transaction = openedSession.getTransaction();
+        final boolean owner = !transaction.isActive();
+        if (owner) {
+            openedSession.setDefaultReadOnly(true);
+            openedSession.setHibernateFlushMode(FlushMode.MANUAL);
+            transaction.begin();
         }
+        final ScrollableResults results;
+        try {
+            results = operation.call();
+        } catch (Exception ex) {
+            LOGGER.error("Something went wrong", ex);
+            OperationMetrics.recordFailure();
+            if (owner) {
+                commit(transaction);
+            }
+            openedSession.close();
+            throw new HibernateException(ex);
+        }
+        Spliterator<T> spliterator = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE, Spliterator.ORDERED) {
+            private int rowsSinceClear = 0;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                if (!results.next()) {
+                    return false;
+                }
+                T element = rowMapper.apply(results.get());
+                if (owner && ++rowsSinceClear >= clearEvery) {
+                    openedSession.clear();
+                    rowsSinceClear = 0;
+                }
+                action.accept(element);
+                return true;
+            }
+        };
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            try {
+                results.close();
+                if (owner) {
+                    commit(transaction);
+                }
+            } finally {
+                openedSession.close();
+            }
+        });
     }
 }
@@ -0,0 +1,97 @@
+package pg.hib.providers;
+
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.engine.spi.SessionDelegatorBaseImpl;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+
+/**
+ * Groups repository calls made on the current thread into one session and one transaction. The session comes from
+ * {@link SessionFactory#getCurrentSession()}, so it is bound by the {@code thread} session context and closed when
+ * the transaction completes. Nested units join the outer one.
+ */
+public final class UnitOfWork {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(UnitOfWork.class);
+    private static final ThreadLocal<Map<SessionFactory, Session>> SCOPES = new ThreadLocal<>();
+
+    private UnitOfWork() { }
+
+    public static void run(SessionFactory sessionFactory, Runnable work) {
+        call(sessionFactory, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /** Commits once the work returns, rolls back when it throws or when one of the repository calls failed. */
+    public static <T> T call(SessionFactory sessionFactory, Callable<T> work) {
+        Map<SessionFactory, Session> scopes = SCOPES.get();
+        if (scopes == null) {
+            scopes = new HashMap<>();
+            SCOPES.set(scopes);
+        } else if (scopes.containsKey(sessionFactory)) {
+            return callJoined(work);
+        }
+        final Session session = sessionFactory.getCurrentSession();
+        final Transaction transaction = session.beginTransaction();
+        scopes.put(sessionFactory, new ScopedSession((SessionImplementor) session));
+        try {
+            final T result = work.call();
+            if (transaction.getRollbackOnly()) {
+                transaction.rollback();
+                throw new HibernateException("Unit of work rolled back because one of its operations failed.");
+            }
+            transaction.commit();
+            return result;
+        } catch (Exception ex) {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+            LOGGER.error("Unit of work failed.", ex);
+            throw ex instanceof HibernateException ? (HibernateException) ex : new HibernateException(ex);
+        } finally {
+            scopes.remove(sessionFactory);
+            if (scopes.isEmpty()) {
+                SCOPES.remove();
+            }
+        }
+    }
+
+    /** Session of the unit of work running on this thread; closing it is left to the unit of work. */
+    public static Optional<Session> currentSession(SessionFactory sessionFactory) {
+        final Map<SessionFactory, Session> scopes = SCOPES.get();
+        return scopes == null ? Optional.empty() : Optional.ofNullable(scopes.get(sessionFactory));
+    }
+
+    private static <T> T callJoined(Callable<T> work) {
+        try {
+            return work.call();
+        } catch (RuntimeException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new HibernateException(ex);
+        }
+    }
+
+    private static final class ScopedSession extends SessionDelegatorBaseImpl {
+
+        ScopedSession(SessionImplementor delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public void close() {
+            //repositories close what they open, the bound session ends with the transaction instead
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package pg.hib.dao;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.query.Query;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import pg.hib.entities.CarEntity;
+
+import javax.persistence.criteria.CompoundSelection;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Order;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Root;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+final class CarRepositoryTest {
+
+    private SessionFactory sessionFactory;
+    private Session session;
+    private CarRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        //mapped like the real factory, but every session is a mock
+        sessionFactory = mock(SessionFactory.class);
+        when(sessionFactory.unwrap(SessionFactoryImplementor.class))
+                .thenReturn(MappedEntities.sessionFactory().unwrap(SessionFactoryImplementor.class));
+        session = mock(Session.class);
+        when(sessionFactory.openSession()).thenReturn(session);
+        when(session.getTransaction()).thenReturn(mock(Transaction.class));
+        repository = new CarRepository(sessionFactory);
+    }
+
+    @Test
+    void givenNoAttributes_whenProjectAll_thenThrowIllegalArgumentException() {
+        assertThatThrownBy(() -> repository.projectAll(CarSummary.class))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(session);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void givenAttributeAndColumnNames_whenProjectAll_thenConstructFromResolvedPathsOrderedById() {
+        final CriteriaBuilder cb = mock(CriteriaBuilder.class);
+        final CriteriaQuery<CarSummary> select = mock(CriteriaQuery.class, RETURNS_SELF);
+        final Root<CarEntity> from = mock(Root.class);
+        final Path<Object> id = mock(Path.class);
+        final Path<Object> active = mock(Path.class);
+        final Path<Object> registered = mock(Path.class);
+        final CompoundSelection<CarSummary> construct = mock(CompoundSelection.class);
+        final Order byId = mock(Order.class);
+        final Query<CarSummary> query = mock(Query.class);
+        final List<CarSummary> summaries = Collections.singletonList(new CarSummary(true, LocalDateTime.now()));
+        when(session.getCriteriaBuilder()).thenReturn(cb);
+        when(cb.createQuery(CarSummary.class)).thenReturn(select);
+        when(select.from(CarEntity.class)).thenReturn(from);
+        doReturn(id).when(from).get("id");
+        doReturn(active).when(from).get("active");
+        doReturn(registered).when(from).get("firstRegistrationDate");
+        when(cb.construct(CarSummary.class, active, registered)).thenReturn(construct);
+        when(cb.asc(id)).thenReturn(byId);
+        when(session.createQuery(select)).thenReturn(query);
+        when(query.getResultList()).thenReturn(summaries);
+
+        final List<CarSummary> result = repository.projectAll(CarSummary.class, "active", "firstregistrationdate");
+
+        assertThat(result).isSameAs(summaries);
+        verify(select).select(construct);
+        verify(select).orderBy(byId);
+    }
+
+    @Test
+    void givenArrayIdBinding_whenDeleteAll_thenDeleteByIdArrayAndDetachManagedEntities() {
+        final CarRepository arrayRepository = new CarRepository(sessionFactory,
+                RepositorySettings.builder().idBindingMode(IdBindingMode.POSTGRES_ARRAY).build());
+        final CarEntity managed = car(1L);
+        final CarEntity detached = car(2L);
+        final CarEntity transientCar = car(null);
+        final String deleteSql = MappedEntities.metadata(CarEntity.class).getDeleteByIdArraySql();
+        final NativeQuery<?> delete = mock(NativeQuery.class);
+        doReturn(delete).when(session).createNativeQuery(deleteSql);
+        when(delete.executeUpdate()).thenReturn(2);
+        when(session.contains(managed)).thenReturn(true);
+
+        final boolean deleted = arrayRepository.deleteAll(Arrays.asList(managed, detached, transientCar));
+
+        assertThat(deleted).isTrue();
+        verify(delete).setParameter("ids", "{1,2}");
+        verify(delete).addSynchronizedEntityClass(CarEntity.class);
+        verify(session).detach(managed);
+        verify(session, never()).detach(detached);
+    }
+
+    @Test
+    void givenRowAlreadyGone_whenDeleteAll_thenReturnFalse() {
+        final CarRepository arrayRepository = new CarRepository(sessionFactory,
+                RepositorySettings.builder().idBindingMode(IdBindingMode.POSTGRES_ARRAY).build());
+        final String deleteSql = MappedEntities.metadata(CarEntity.class).getDeleteByIdArraySql();
+        final NativeQuery<?> delete = mock(NativeQuery.class);
+        doReturn(delete).when(session).createNativeQuery(deleteSql);
+        when(delete.executeUpdate()).thenReturn(1);
+
+        assertThat(arrayRepository.deleteAll(Arrays.asList(car(1L), car(2L)))).isFalse();
+    }
+
+    @Test
+    void givenOnlyTransientEntities_whenDeleteAll_thenIssueNoStatement() {
+        assertThat(repository.deleteAll(Collections.singletonList(car(null)))).isTrue();
+        verify(session, never()).createNativeQuery(anyString());
+        verify(session, never()).getCriteriaBuilder();
+    }
+
+    private static CarEntity car(Long id) {
+        return new CarEntity(id, true, LocalDateTime.now(), LocalDateTime.now());
+    }
+
+    static final class CarSummary {
+        private final boolean active;
+        private final LocalDateTime firstRegistrationDate;
+
+        CarSummary(boolean active, LocalDateTime firstRegistrationDate) {
+            this.active = active;
+            this.firstRegistrationDate = firstRegistrationDate;
+        }
+    }
+}
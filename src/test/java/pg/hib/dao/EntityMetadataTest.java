@@ -0,0 +1,40 @@
+package pg.hib.dao;
+
+import org.junit.jupiter.api.Test;
+import pg.hib.entities.CarEntity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+final class EntityMetadataTest {
+
+    private final EntityMetadata<CarEntity> metadata = MappedEntities.metadata(CarEntity.class);
+
+    @Test
+    void givenCarEntity_whenGetCountAndExistingIdsHql_thenSelectFromEntity() {
+        assertThat(metadata.getCountHql()).isEqualTo("SELECT COUNT(t) FROM CarEntity t");
+        assertThat(metadata.getExistingIdsHql()).isEqualTo("SELECT t.id FROM CarEntity t WHERE t.id IN :ids");
+    }
+
+    @Test
+    void givenCarEntity_whenGetDeleteStatements_thenTargetEntityAndTable() {
+        assertThat(metadata.getDeleteEverythingHql()).isEqualTo("DELETE FROM CarEntity");
+        assertThat(metadata.getTruncateSql()).isEqualTo("TRUNCATE TABLE cars");
+        assertThat(metadata.getDeleteByIdArraySql())
+                .isEqualTo("DELETE FROM cars WHERE id = ANY(CAST(:ids AS bigint[]))");
+    }
+
+    @Test
+    void givenCarEntity_whenGetRangeHql_thenBoundById() {
+        assertThat(metadata.getIdRangeHql()).isEqualTo("SELECT MIN(t.id), MAX(t.id) FROM CarEntity t");
+        assertThat(metadata.getRangeScanHql()).isEqualTo("FROM CarEntity t WHERE t.id BETWEEN :lower AND :upper");
+        assertThat(metadata.getRangeScanHql()).isSameAs(metadata.getRangeScanHql());
+    }
+
+    @Test
+    void givenCarEntity_whenGetGenericHql_thenReuseTheSameStrings() {
+        assertThat(metadata.getGenericHql())
+                .contains(metadata.getFindAllHql(), metadata.getCountHql(), metadata.getExistingIdsHql());
+        assertThat(metadata.getCountHql()).isSameAs(metadata.getCountHql());
+        assertThat(metadata.getTruncateSql()).isSameAs(metadata.getTruncateSql());
+    }
+}
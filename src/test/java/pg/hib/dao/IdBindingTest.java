@@ -0,0 +1,55 @@
+package pg.hib.dao;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+final class IdBindingTest {
+
+    @Test
+    void givenIdsBelowChunkSize_whenPaddedChunks_thenPadToNextPowerOfTwoWithLastId() {
+        final List<List<Serializable>> chunks = IdBinding.paddedChunks(Arrays.asList(1L, 2L, 3L, 4L, 5L), 512);
+
+        assertThat(chunks).hasSize(1);
+        assertThat(chunks.get(0)).containsExactly(1L, 2L, 3L, 4L, 5L, 5L, 5L, 5L);
+    }
+
+    @Test
+    void givenIdsAboveChunkSize_whenPaddedChunks_thenSplitIntoChunksOfAtMostChunkSize() {
+        final List<Serializable> ids = LongStream.rangeClosed(1, 1000).boxed().collect(Collectors.toList());
+
+        final List<List<Serializable>> chunks = IdBinding.paddedChunks(ids, 256);
+
+        assertThat(chunks).hasSize(4);
+        assertThat(chunks).allSatisfy(chunk -> assertThat(chunk).hasSize(256));
+        assertThat(chunks.get(3)).endsWith(1000L, 1000L);
+    }
+
+    @Test
+    void givenDuplicatedIds_whenPaddedChunks_thenDuplicatesAreRemovedBeforePadding() {
+        final List<List<Serializable>> chunks = IdBinding.paddedChunks(Arrays.asList(7, 7, 8), 512);
+
+        assertThat(chunks.get(0)).containsExactly(7, 8);
+        assertThat(IdBinding.distinctCount(Arrays.asList(7, 7, 8))).isEqualTo(2);
+    }
+
+    @Test
+    void givenNumericAndTextIds_whenPostgresArrayLiteral_thenRenderArrayLiteral() {
+        assertThat(IdBinding.postgresArrayLiteral(Arrays.asList(1L, 2L, 3L))).isEqualTo("{1,2,3}");
+        assertThat(IdBinding.postgresArrayLiteral(Arrays.asList("a", "b\"c"))).isEqualTo("{\"a\",\"b\\\"c\"}");
+    }
+
+    @Test
+    void givenUnsupportedIdType_whenPostgresArrayType_thenThrowIllegalArgumentException() {
+        assertThat(IdBinding.postgresArrayType(Long.class)).isEqualTo("bigint");
+        assertThatThrownBy(() -> IdBinding.postgresArrayType(Double.class))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,35 @@
+package pg.hib.dao;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.Environment;
+import pg.hib.entities.CarEntity;
+import pg.hib.entities.TestEntity;
+
+/**
+ * Session factory over the real entity mappings that never opens a connection, so {@link EntityMetadata} and the
+ * repositories can be built in unit tests without a database.
+ */
+final class MappedEntities {
+
+    private static final SessionFactory SESSION_FACTORY = new MetadataSources(new StandardServiceRegistryBuilder()
+            .applySetting(Environment.DIALECT, "org.hibernate.dialect.PostgreSQL10Dialect")
+            //no JDBC metadata lookup during bootstrap
+            .applySetting("hibernate.temp.use_jdbc_metadata_defaults", "false")
+            .build())
+            .addAnnotatedClass(TestEntity.class)
+            .addAnnotatedClass(CarEntity.class)
+            .buildMetadata()
+            .buildSessionFactory();
+
+    private MappedEntities() { }
+
+    static SessionFactory sessionFactory() {
+        return SESSION_FACTORY;
+    }
+
+    static <E> EntityMetadata<E> metadata(Class<E> entityClass) {
+        return EntityMetadataRegistry.forSessionFactory(SESSION_FACTORY).get(entityClass);
+    }
+}
@@ -0,0 +1,42 @@
+package pg.hib.dao;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+final class ParallelScanTest {
+
+    @Test
+    void givenRangeNotDivisibleByPartitions_whenSplit_thenCoverRangeWithoutGaps() {
+        final List<ParallelScan.Partition> partitions = ParallelScan.split(1, 10, 3);
+
+        assertThat(partitions).extracting(ParallelScan.Partition::getLowerId).containsExactly(1L, 5L, 9L);
+        assertThat(partitions).extracting(ParallelScan.Partition::getUpperId).containsExactly(4L, 8L, 10L);
+    }
+
+    @Test
+    void givenFewerIdsThanPartitions_whenSplit_thenOnePartitionPerId() {
+        final List<ParallelScan.Partition> partitions = ParallelScan.split(7, 9, 8);
+
+        assertThat(partitions).extracting(ParallelScan.Partition::getLowerId).containsExactly(7L, 8L, 9L);
+        assertThat(partitions).extracting(ParallelScan.Partition::getUpperId).containsExactly(7L, 8L, 9L);
+    }
+
+    @Test
+    void givenIdsNearLongLimits_whenSplit_thenTerminateWithoutOverflow() {
+        final List<ParallelScan.Partition> partitions = ParallelScan.split(Long.MIN_VALUE, Long.MAX_VALUE, 4);
+
+        assertThat(partitions).hasSize(4);
+        assertThat(partitions.get(0).getLowerId()).isEqualTo(Long.MIN_VALUE);
+        assertThat(partitions.get(3).getUpperId()).isEqualTo(Long.MAX_VALUE);
+        for (int i = 1; i < partitions.size(); i++) {
+            assertThat(partitions.get(i).getLowerId()).isEqualTo(partitions.get(i - 1).getUpperId() + 1);
+        }
+        assertThat(ParallelScan.split(Long.MAX_VALUE - 2, Long.MAX_VALUE, 1))
+                .singleElement()
+                .extracting(ParallelScan.Partition::getUpperId)
+                .isEqualTo(Long.MAX_VALUE);
+    }
+}
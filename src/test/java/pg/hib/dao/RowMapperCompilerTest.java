@@ -0,0 +1,95 @@
+package pg.hib.dao;
+
+import org.hibernate.HibernateException;
+import org.junit.jupiter.api.Test;
+import pg.hib.entities.CarEntity;
+
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+final class RowMapperCompilerTest {
+
+    private static final LocalDateTime CREATED = LocalDateTime.of(2021, 12, 24, 18, 30, 15);
+    private static final LocalDateTime REGISTERED = LocalDateTime.of(2015, 3, 1, 8, 0);
+
+    @Test
+    void givenColumnsInDeclarationOrder_whenMap_thenConvertBigIntegerAndTextTimestamps() {
+        final EntityFieldMapper<CarEntity> mapper = RowMapperCompiler.compile(
+                CarEntity.class, Arrays.asList("id", "active", "created", "firstRegistrationDate")
+        );
+
+        final CarEntity car = mapper.map(new Object[]{BigInteger.valueOf(42), true, CREATED.toString(), REGISTERED.toString()});
+
+        assertThat(car.getId()).isEqualTo(42L);
+        assertThat(car.isActive()).isTrue();
+        assertThat(car.getCreated()).isEqualTo(CREATED);
+        assertThat(car.getFirstRegistrationDate()).isEqualTo(REGISTERED);
+    }
+
+    @Test
+    void givenNativeTimestampColumns_whenMap_thenConvertWithoutText() {
+        final EntityFieldMapper<CarEntity> mapper = RowMapperCompiler.compile(
+                CarEntity.class, Arrays.asList("id", "active", "created", "firstRegistrationDate")
+        );
+
+        final CarEntity car = mapper.map(
+                new Object[]{7L, false, Timestamp.valueOf(CREATED), Timestamp.valueOf(REGISTERED)}
+        );
+
+        assertThat(car.getCreated()).isEqualTo(CREATED);
+        assertThat(car.getFirstRegistrationDate()).isEqualTo(REGISTERED);
+    }
+
+    @Test
+    void givenColumnsOutOfOrder_whenMap_thenBindBySetters() {
+        final EntityFieldMapper<CarEntity> mapper = RowMapperCompiler.compile(
+                CarEntity.class, Arrays.asList("firstRegistrationDate", "id")
+        );
+
+        final CarEntity car = mapper.map(new Object[]{REGISTERED.toString(), 3});
+
+        assertThat(car.getId()).isEqualTo(3L);
+        assertThat(car.getFirstRegistrationDate()).isEqualTo(REGISTERED);
+        assertThat(car.getCreated()).isNull();
+    }
+
+    @Test
+    void givenNullColumnForPrimitiveField_whenMap_thenThrowHibernateExceptionNamingTheColumn() {
+        final EntityFieldMapper<CarEntity> constructorMapper = RowMapperCompiler.compile(
+                CarEntity.class, Arrays.asList("id", "active", "created", "firstRegistrationDate")
+        );
+        final EntityFieldMapper<CarEntity> setterMapper = RowMapperCompiler.compile(
+                CarEntity.class, Arrays.asList("active", "id")
+        );
+
+        assertThatThrownBy(() -> constructorMapper.map(new Object[]{1L, null, CREATED.toString(), null}))
+                .isInstanceOf(HibernateException.class)
+                .hasMessageContaining("active");
+        assertThatThrownBy(() -> setterMapper.map(new Object[]{null, 1L}))
+                .isInstanceOf(HibernateException.class)
+                .hasMessageContaining("active");
+    }
+
+    @Test
+    void givenNullColumnForBoxedField_whenMap_thenKeepNull() {
+        final EntityFieldMapper<CarEntity> mapper = RowMapperCompiler.compile(
+                CarEntity.class, Arrays.asList("id", "active", "created", "firstRegistrationDate")
+        );
+
+        final CarEntity car = mapper.map(new Object[]{null, true, null, null});
+
+        assertThat(car.getId()).isNull();
+        assertThat(car.getCreated()).isNull();
+    }
+
+    @Test
+    void givenUnknownAttribute_whenCompile_thenThrowIllegalArgumentException() {
+        assertThatThrownBy(() -> RowMapperCompiler.compile(CarEntity.class, Arrays.asList("id", "colour")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,57 @@
+package pg.hib.dao;
+
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import pg.hib.entities.CarEntity;
+
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+final class SecondLevelCacheTest {
+
+    private SessionFactory sessionFactory;
+    private Cache cache;
+    private Transaction transaction;
+
+    @BeforeEach
+    void setUp() {
+        sessionFactory = mock(SessionFactory.class);
+        cache = mock(Cache.class);
+        transaction = mock(Transaction.class);
+        when(sessionFactory.getCache()).thenReturn(cache);
+    }
+
+    @Test
+    void givenRegisteredEviction_whenTransactionCommits_thenEvictEntityAndQueryRegions() {
+        final Synchronization synchronization = register();
+        verifyNoInteractions(cache);
+
+        synchronization.afterCompletion(Status.STATUS_COMMITTED);
+
+        verify(cache).evictEntityData(CarEntity.class);
+        verify(cache).evictQueryRegions();
+    }
+
+    @Test
+    void givenRegisteredEviction_whenTransactionRollsBack_thenCacheIsLeftAlone() {
+        register().afterCompletion(Status.STATUS_ROLLEDBACK);
+
+        verifyNoInteractions(cache);
+    }
+
+    private Synchronization register() {
+        SecondLevelCache.evictOnCommit(transaction, sessionFactory, CarEntity.class);
+        final ArgumentCaptor<Synchronization> synchronization = ArgumentCaptor.forClass(Synchronization.class);
+        verify(transaction).registerSynchronization(synchronization.capture());
+        return synchronization.getValue();
+    }
+}
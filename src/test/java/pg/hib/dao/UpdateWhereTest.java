@@ -0,0 +1,98 @@
+package pg.hib.dao;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import pg.hib.entities.CarEntity;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Root;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+final class UpdateWhereTest {
+
+    private EntityMetadata<CarEntity> metadata;
+
+    @BeforeEach
+    void setUp() {
+        metadata = MappedEntities.metadata(CarEntity.class);
+    }
+
+    @Test
+    void givenNoPredicate_whenExecute_thenRequireAllRows() {
+        final UpdateWhere<CarEntity> update = new UpdateWhere<>(metadata, ignored -> 7).set("active", false);
+
+        assertThatThrownBy(update::execute).isInstanceOf(IllegalStateException.class);
+        assertThat(update.allRows().execute()).isEqualTo(7);
+    }
+
+    @Test
+    void givenPredicate_whenExecute_thenRunWithoutAllRows() {
+        final UpdateWhere<CarEntity> update = new UpdateWhere<>(metadata, ignored -> 3)
+                .set("active", false)
+                .where("firstregistrationdate", null);
+
+        assertThat(update.execute()).isEqualTo(3);
+    }
+
+    @Test
+    void givenNoAssignment_whenExecute_thenThrowIllegalStateException() {
+        assertThatThrownBy(() -> new UpdateWhere<>(metadata, ignored -> 0).allRows().execute())
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void givenIdAttributeOrColumn_whenSet_thenThrowIllegalArgumentException() {
+        final UpdateWhere<CarEntity> update = new UpdateWhere<>(metadata, ignored -> 0);
+
+        assertThatThrownBy(() -> update.set("id", 1L)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> update.set("ID", (cb, car) -> car.get("id")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void givenValueOfWrongType_whenSet_thenThrowIllegalArgumentException() {
+        final UpdateWhere<CarEntity> update = new UpdateWhere<>(metadata, ignored -> 0);
+
+        assertThatThrownBy(() -> update.set("active", "yes")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> update.set("created", "2021-12-24T18:30")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void givenBoxedValueForPrimitiveOrColumnName_whenSet_thenAccept() {
+        final UpdateWhere<CarEntity> update = new UpdateWhere<>(metadata, ignored -> 0);
+
+        update.set("active", Boolean.TRUE).set("firstregistrationdate", LocalDateTime.now());
+    }
+
+    @Test
+    void givenUnknownAttribute_whenSet_thenThrowIllegalArgumentException() {
+        assertThatThrownBy(() -> new UpdateWhere<>(metadata, ignored -> 0).set("colour", "red"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void givenNullValue_whenApplyTo_thenAssignTypedNullLiteral() {
+        final CriteriaBuilder cb = mock(CriteriaBuilder.class);
+        final CriteriaUpdate<CarEntity> criteria = mock(CriteriaUpdate.class);
+        final Root<CarEntity> root = mock(Root.class);
+        final Path<Object> created = mock(Path.class);
+        final Expression<Object> nullLiteral = mock(Expression.class);
+        doReturn(created).when(root).get("created");
+        doReturn(LocalDateTime.class).when(created).getJavaType();
+        doReturn(nullLiteral).when(cb).nullLiteral(LocalDateTime.class);
+
+        new UpdateWhere<>(metadata, ignored -> 0).set("created", null).allRows().applyTo(cb, criteria, root);
+
+        verify(criteria).<Object>set(created, nullLiteral);
+    }
+}
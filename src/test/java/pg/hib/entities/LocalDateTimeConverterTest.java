@@ -0,0 +1,33 @@
+package pg.hib.entities;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+final class LocalDateTimeConverterTest {
+
+    private final LocalDateTimeConverter converter = new LocalDateTimeConverter();
+
+    @Test
+    void givenIsoText_whenConvertToEntityAttribute_thenParse() {
+        assertThat(converter.convertToEntityAttribute("2021-12-24T18:30:15.123"))
+                .isEqualTo(LocalDateTime.of(2021, 12, 24, 18, 30, 15, 123_000_000));
+    }
+
+    @Test
+    void givenTimestampRenderedByPostgres_whenConvertToEntityAttribute_thenParse() {
+        assertThat(converter.convertToEntityAttribute("2021-12-24 18:30:15.123"))
+                .isEqualTo(LocalDateTime.of(2021, 12, 24, 18, 30, 15, 123_000_000));
+        assertThat(converter.convertToEntityAttribute("2021-12-24 18:30:15"))
+                .isEqualTo(LocalDateTime.of(2021, 12, 24, 18, 30, 15));
+    }
+
+    @Test
+    void givenDateTime_whenRoundTrip_thenUnchanged() {
+        final LocalDateTime value = LocalDateTime.of(2022, 1, 2, 3, 4, 5, 6_000);
+
+        assertThat(converter.convertToEntityAttribute(converter.convertToDatabaseColumn(value))).isEqualTo(value);
+    }
+}
@@ -0,0 +1,39 @@
+package pg.hib.load;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+final class LoadConfigTest {
+
+    @Test
+    void givenMixDefinition_whenBuild_thenWeightsPerOperation() {
+        final LoadConfig config = LoadConfig.builder().mix("car.findById=70, car.save=30,bean.save=0").build();
+
+        assertThat(config.getMix())
+                .containsEntry(LoadOperation.CAR_FIND_BY_ID, 70)
+                .containsEntry(LoadOperation.CAR_SAVE, 30)
+                .doesNotContainKey(LoadOperation.BEAN_SAVE);
+    }
+
+    @Test
+    void givenDefaultMix_whenBuild_thenEveryOperationKnown() {
+        final LoadConfig config = LoadConfig.builder().mix(LoadConfig.DEFAULT_MIX).build();
+
+        assertThat(config.getMix()).hasSize(LoadOperation.values().length);
+    }
+
+    @Test
+    void givenUnknownOperation_whenBuild_thenRejected() {
+        assertThatThrownBy(() -> LoadConfig.builder().mix("car.truncate=1"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("car.truncate");
+    }
+
+    @Test
+    void givenEmptyMix_whenBuild_thenRejected() {
+        assertThatThrownBy(() -> LoadConfig.builder().mix("car.findById=0").build())
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,61 @@
+package pg.hib.providers;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+final class OperationStatsTest {
+
+    @Test
+    void givenClosedTimers_whenSnapshot_thenCountsRowsBatchesAndErrors() {
+        final OperationStats stats = new OperationStats("CarRepository", "saveAll");
+
+        try (OperationTimer timer = new OperationTimer(stats, null, false)) {
+            timer.rows(100);
+            timer.batch();
+            timer.batch();
+            timer.commit(2_000_000);
+        }
+        try (OperationTimer timer = new OperationTimer(stats, null, false)) {
+            timer.failed();
+        }
+
+        final OperationSnapshot snapshot = stats.snapshot();
+        assertThat(snapshot.getCount()).isEqualTo(2);
+        assertThat(snapshot.getRows()).isEqualTo(100);
+        assertThat(snapshot.getBatches()).isEqualTo(2);
+        assertThat(snapshot.getErrors()).isEqualTo(1);
+        assertThat(snapshot.getCommitLatencyAtPercentile(99)).isBetween(1990L, 2010L);
+    }
+
+    @Test
+    void givenTimerClosedTwice_whenSnapshot_thenRecordedOnce() {
+        final OperationStats stats = new OperationStats("CarRepository", "findAll");
+
+        final OperationTimer timer = new OperationTimer(stats, null, false);
+        timer.close();
+        timer.close();
+
+        assertThat(stats.getCount()).isEqualTo(1);
+    }
+
+    @Test
+    void givenReset_whenSnapshot_thenEmpty() {
+        final OperationStats stats = new OperationStats("CarRepository", "findAll");
+        new OperationTimer(stats, null, false).close();
+
+        stats.reset();
+
+        assertThat(stats.snapshot().getCount()).isZero();
+        assertThat(stats.getRows()).isZero();
+    }
+
+    @Test
+    void givenNoopTimer_whenClosed_thenNothingRecorded() {
+        OperationTimer.NOOP.rows(10);
+        OperationTimer.NOOP.close();
+
+        assertThat(OperationMetrics.ENABLED).isFalse();
+        assertThat(OperationMetrics.start("CarRepository", "findAll")).isSameAs(OperationTimer.NOOP);
+    }
+}
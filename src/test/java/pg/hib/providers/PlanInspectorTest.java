@@ -0,0 +1,40 @@
+package pg.hib.providers;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+final class PlanInspectorTest {
+
+    private static final String SEQ_SCAN_PLAN = "[{\"Plan\": {\"Node Type\": \"Sort\", \"Startup Cost\": 1520.10, " +
+            "\"Total Cost\": 1545.10, \"Plans\": [{\"Node Type\": \"Seq Scan\", \"Parent Relationship\": \"Outer\", " +
+            "\"Relation Name\": \"cars\", \"Alias\": \"c\", \"Total Cost\": 1200.00}]}, " +
+            "\"Planning Time\": 0.120, \"Execution Time\": 12.345}]";
+
+    private static final String INDEX_PLAN = "[{\"Plan\": {\"Node Type\": \"Index Scan\", \"Relation Name\": \"cars\", " +
+            "\"Index Name\": \"cars_firstregistrationdate_idx\", \"Total Cost\": 8.44}, \"Execution Time\": 0.050}]";
+
+    @Test
+    void givenSeqScanPlan_whenParse_thenFlagRelationAndCost() {
+        final PlanInspector.PlanFinding finding = PlanInspector.PlanFinding.parse(
+                "CarRepository.findAll", "select * from cars", SEQ_SCAN_PLAN, 1000
+        );
+
+        assertThat(finding.isFlagged()).isTrue();
+        assertThat(finding.getSequentialScans()).containsExactly("cars");
+        assertThat(finding.getTotalCost()).isEqualTo(1545.10);
+        assertThat(finding.isCostExceeded()).isTrue();
+        assertThat(finding.getExecutionMillis()).isEqualTo(12.345);
+    }
+
+    @Test
+    void givenCheapIndexScan_whenParse_thenNotFlagged() {
+        final PlanInspector.PlanFinding finding = PlanInspector.PlanFinding.parse(
+                "CarRepository.findAllByFirstRegistrationDateAfter", "select ...", INDEX_PLAN, 1000
+        );
+
+        assertThat(finding.isFlagged()).isFalse();
+        assertThat(finding.getSequentialScans()).isEmpty();
+        assertThat(finding.getTotalCost()).isEqualTo(8.44);
+    }
+}
@@ -0,0 +1,123 @@
+package pg.hib.providers;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+final class SlowQueryLogTest {
+
+    @Test
+    void givenLiteralsAndInList_whenNormalize_thenShapeIsStable() {
+        final String first = SlowQueryLog.normalize("select * from cars c where c.id in (?, ?, ?)\n and c.name = 'a''b' limit 10");
+        final String second = SlowQueryLog.normalize("select * from cars c where c.id in (?,?) and c.name = 'x' limit 20");
+
+        assertThat(first).isEqualTo("select * from cars c where c.id in (?...) and c.name = ? limit ?");
+        assertThat(second).isEqualTo(first);
+    }
+
+    @Test
+    void givenHibernateAliases_whenNormalize_thenIdentifiersKept() {
+        assertThat(SlowQueryLog.normalize("select carentity0_.id as id1_0_ from cars carentity0_"))
+                .isEqualTo("select carentity0_.id as id1_0_ from cars carentity0_");
+    }
+
+    @Test
+    void givenQueryAboveThreshold_whenResultSetClosed_thenRowsAndBindsRecorded() throws SQLException {
+        final SlowQueryLog slowQueryLog = new SlowQueryLog(0, 1.0, 10);
+        final Connection connection = slowQueryLog.wrap(connectionReturning(3));
+
+        final PreparedStatement statement = connection.prepareStatement("select * from cars where id in (?, ?)");
+        statement.setLong(1, 1L);
+        statement.setLong(2, 2L);
+        final ResultSet resultSet = statement.executeQuery();
+        while (resultSet.next()) {
+            assertThat(slowQueryLog.getSlowestStatements()).isEmpty();
+        }
+        resultSet.close();
+        resultSet.close();
+
+        final List<SlowQueryLog.SlowStatement> slowest = slowQueryLog.getSlowestStatements();
+        assertThat(slowest).hasSize(1);
+        assertThat(slowest.get(0).getShape()).isEqualTo("select * from cars where id in (?...)");
+        assertThat(slowest.get(0).getCount()).isEqualTo(1);
+        assertThat(slowest.get(0).getLastRows()).isEqualTo(3);
+        assertThat(slowest.get(0).getLastBinds()).isEqualTo(2);
+    }
+
+    @Test
+    void givenQueryBelowThreshold_whenExecuted_thenResultSetNotWrapped() throws SQLException {
+        final SlowQueryLog slowQueryLog = new SlowQueryLog(60_000, 1.0, 10);
+        final Connection pooled = connectionReturning(3);
+        final Connection connection = slowQueryLog.wrap(pooled);
+
+        final ResultSet resultSet = connection.prepareStatement("select * from cars").executeQuery();
+
+        assertThat(resultSet).isSameAs(pooled.prepareStatement("").executeQuery());
+    }
+
+    @Test
+    void givenUpdateAboveThreshold_whenExecuted_thenUpdateCountRecorded() throws SQLException {
+        final SlowQueryLog slowQueryLog = new SlowQueryLog(0, 1.0, 10);
+        final Connection connection = slowQueryLog.wrap(connectionReturning(4));
+
+        connection.prepareStatement("update cars set active = ?").executeUpdate();
+
+        assertThat(slowQueryLog.getSlowestStatements().get(0).getLastRows()).isEqualTo(4);
+    }
+
+    @Test
+    void givenZeroSampleRate_whenWrap_thenConnectionIsLeftUnwrapped() throws SQLException {
+        final SlowQueryLog slowQueryLog = new SlowQueryLog(0, 0.0, 10);
+        final Connection pooled = connectionReturning(1);
+
+        assertThat(slowQueryLog.wrap(pooled)).isSameAs(pooled);
+    }
+
+    @Test
+    void givenMoreShapesThanTopSize_whenRecorded_thenListStaysBounded() throws SQLException {
+        final SlowQueryLog slowQueryLog = new SlowQueryLog(0, 1.0, 2);
+        final Connection connection = slowQueryLog.wrap(connectionReturning(0));
+
+        for (String table : new String[]{"cars", "test_bean", "other"}) {
+            final PreparedStatement statement = connection.prepareStatement("update " + table + " set active = ?");
+            statement.setBoolean(1, true);
+            statement.executeUpdate();
+        }
+
+        assertThat(slowQueryLog.getSlowestStatements()).hasSize(2);
+    }
+
+    @Test
+    void givenQueryBelowThreshold_whenExecuted_thenNothingRecorded() throws SQLException {
+        final SlowQueryLog slowQueryLog = new SlowQueryLog(60_000, 1.0, 10);
+        final Connection connection = slowQueryLog.wrap(connectionReturning(1));
+
+        connection.prepareStatement("update cars set active = ?").executeUpdate();
+
+        assertThat(slowQueryLog.getSlowestStatements()).isEmpty();
+    }
+
+    private static Connection connectionReturning(int rows) throws SQLException {
+        final Connection connection = mock(Connection.class);
+        final PreparedStatement statement = mock(PreparedStatement.class);
+        final ResultSet resultSet = mock(ResultSet.class);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        when(statement.executeUpdate()).thenReturn(rows);
+        Boolean[] next = new Boolean[rows];
+        for (int i = 0; i < rows; i++) {
+            next[i] = i < rows - 1;
+        }
+        when(resultSet.next()).thenReturn(rows > 0, next);
+        return connection;
+    }
+}
@@ -0,0 +1,115 @@
+package pg.hib.providers;
+
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+final class TemplateProviderTest {
+
+    private Session session;
+    private Transaction transaction;
+
+    @BeforeEach
+    void setUp() {
+        session = mock(Session.class);
+        transaction = mock(Transaction.class);
+        when(session.getTransaction()).thenReturn(transaction);
+    }
+
+    @Test
+    void givenNoActiveTransaction_whenCollectionTemplate_thenBeginAndCommit() {
+        when(transaction.isActive()).thenReturn(false);
+
+        final List<String> result = TemplateProvider.collectionTemplate(session, () -> Collections.singletonList("a"));
+
+        assertThat(result).containsExactly("a");
+        verify(transaction).begin();
+        verify(transaction).commit();
+    }
+
+    @Test
+    void givenActiveTransaction_whenSingleObjectTemplate_thenJoinWithoutCommit() {
+        when(transaction.isActive()).thenReturn(true);
+
+        final Optional<String> result = TemplateProvider.singleObjectTemplate(session, () -> "a", String.class);
+
+        assertThat(result).contains("a");
+        verify(transaction, never()).begin();
+        verify(transaction, never()).commit();
+    }
+
+    @Test
+    void givenActiveTransaction_whenOperationFails_thenMarkRollbackOnly() {
+        when(transaction.isActive()).thenReturn(true);
+
+        assertThatThrownBy(() -> TemplateProvider.voidTemplate(session, () -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(HibernateException.class);
+
+        verify(transaction).markRollbackOnly();
+        verify(transaction, never()).commit();
+    }
+
+    @Test
+    void givenActiveTransaction_whenReadOnlyTemplate_thenSessionStateIsLeftAlone() {
+        when(transaction.isActive()).thenReturn(true);
+
+        TemplateProvider.readOnlyCollectionTemplate(session, Collections::emptyList);
+
+        verify(session, never()).setDefaultReadOnly(true);
+        verify(session, never()).doWork(any());
+    }
+
+    @Test
+    void givenNoActiveTransaction_whenReadOnlyTemplate_thenConnectionIsTouchedOnlyBeforeTheTransaction() {
+        when(transaction.isActive()).thenReturn(false);
+
+        TemplateProvider.readOnlyCollectionTemplate(session, Collections::emptyList);
+
+        verify(session).setDefaultReadOnly(true);
+        //the flag is reset by the pool, not through a second connection checkout after commit
+        verify(session, times(1)).doWork(any());
+        verify(transaction).commit();
+    }
+
+    @Test
+    void givenFailingBulkWrite_whenStatelessTemplate_thenRollBackWithoutCommit() {
+        final StatelessSession statelessSession = mock(StatelessSession.class);
+        when(statelessSession.beginTransaction()).thenReturn(transaction);
+        when(transaction.isActive()).thenReturn(true);
+
+        assertThatThrownBy(() -> TemplateProvider.statelessTemplate(statelessSession, () -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(HibernateException.class);
+
+        verify(transaction).rollback();
+        verify(transaction, never()).commit();
+    }
+
+    @Test
+    void givenSuccessfulBulkWrite_whenStatelessTemplate_thenCommit() {
+        final StatelessSession statelessSession = mock(StatelessSession.class);
+        when(statelessSession.beginTransaction()).thenReturn(transaction);
+
+        assertThat(TemplateProvider.statelessTemplate(statelessSession, () -> 3)).isEqualTo(3);
+
+        verify(transaction).commit();
+        verify(transaction, never()).rollback();
+    }
+}